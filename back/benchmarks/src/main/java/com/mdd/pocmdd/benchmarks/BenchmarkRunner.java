@@ -0,0 +1,28 @@
+package com.mdd.pocmdd.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée des bancs : accepte les options habituelles de JMH (filtre
+ * des bancs, paramètres...) et écrit toujours les résultats au format JSON,
+ * dans jmh-results.json ou dans le fichier donné par -Djmh.results.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar                 # tous les bancs
+ * java -jar target/benchmarks.jar Token -p cost=10 # un sous-ensemble
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder()
+				.parent(commandLine)
+				.resultFormat(ResultFormatType.JSON)
+				.result(System.getProperty("jmh.results", "jmh-results.json"))
+				.build()).run();
+	}
+}
@@ -0,0 +1,115 @@
+package com.mdd.pocmdd.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.mdd.pocmdd.dto.ArticleDTO;
+import com.mdd.pocmdd.dto.ThemeDTO;
+import com.mdd.pocmdd.models.Article;
+import com.mdd.pocmdd.models.Comment;
+import com.mdd.pocmdd.models.Theme;
+import com.mdd.pocmdd.models.User;
+
+/**
+ * Données des bancs, générées à partir d'une graine fixe pour que deux
+ * exécutions mesurent exactement les mêmes objets.
+ */
+final class Fixtures {
+
+	static final long SEED = 42L;
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	private Fixtures() {
+	}
+
+	static List<Theme> themes(int count) {
+		List<Theme> themes = new ArrayList<>(count);
+		for (long id = 1; id <= count; id++) {
+			Theme theme = new Theme();
+			theme.setId(id);
+			theme.setTitle("Thème " + id);
+			theme.setDescription("Description du thème " + id);
+			themes.add(theme);
+		}
+		return themes;
+	}
+
+	static User user(long id, List<Theme> subscribedThemes) {
+		User user = new User();
+		user.setId(id);
+		user.setUsername("user" + id);
+		user.setEmail("user" + id + "@example.com");
+		user.setPassword("Password1");
+		user.setRole("User");
+		user.setSubscribedThemes(new ArrayList<>(subscribedThemes));
+		return user;
+	}
+
+	static List<ThemeDTO> themeDtos(List<Theme> themes) {
+		return themes.stream().map(theme -> new ThemeDTO(theme.getId(), theme.getTitle(), theme.getDescription()))
+				.toList();
+	}
+
+	static List<Article> articles(int count, List<Theme> themes, List<User> authors) {
+		Random random = new Random(SEED);
+		List<Article> articles = new ArrayList<>(count);
+		for (long id = 1; id <= count; id++) {
+			Article article = new Article();
+			article.setId(id);
+			article.setTitle("Article " + id);
+			article.setContent(text(random, 80));
+			article.setCreatedAt(START.plusMinutes(id));
+			article.setTheme(themes.get(random.nextInt(themes.size())));
+			article.setUser(authors.get(random.nextInt(authors.size())));
+			articles.add(article);
+		}
+		return articles;
+	}
+
+	static List<Comment> comments(int count, Article article, List<User> authors) {
+		Random random = new Random(SEED);
+		List<Comment> comments = new ArrayList<>(count);
+		for (long id = 1; id <= count; id++) {
+			Comment comment = new Comment();
+			comment.setId(id);
+			comment.setContent(text(random, 20));
+			comment.setUser(authors.get(random.nextInt(authors.size())));
+			comment.setAuthorName(comment.getUser().getUsername());
+			comment.setArticle(article);
+			comments.add(comment);
+		}
+		return comments;
+	}
+
+	static List<ArticleDTO> articleDtos(List<Article> articles) {
+		return articles.stream().map(article -> {
+			ArticleDTO dto = new ArticleDTO();
+			dto.setId(article.getId());
+			dto.setTitle(article.getTitle());
+			dto.setContent(article.getContent());
+			dto.setCreatedAt(article.getCreatedAt());
+			dto.setUserId(article.getUser().getId());
+			dto.setAuthorName(article.getUser().getUsername());
+			dto.setThemeId(article.getTheme().getId());
+			dto.setThemeTitle(article.getTheme().getTitle());
+			return dto;
+		}).toList();
+	}
+
+	private static String text(Random random, int words) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				text.append(' ');
+			}
+			int length = 2 + random.nextInt(9);
+			for (int j = 0; j < length; j++) {
+				text.append((char) ('a' + random.nextInt(26)));
+			}
+		}
+		return text.toString();
+	}
+}
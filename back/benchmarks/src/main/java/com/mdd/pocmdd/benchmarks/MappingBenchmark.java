@@ -0,0 +1,99 @@
+package com.mdd.pocmdd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mdd.pocmdd.dto.ArticleDTO;
+import com.mdd.pocmdd.dto.CommentDTO;
+import com.mdd.pocmdd.dto.ThemeDTO;
+import com.mdd.pocmdd.dto.UserDTO;
+import com.mdd.pocmdd.mapper.ArticleMapper;
+import com.mdd.pocmdd.mapper.ArticleMapperImpl;
+import com.mdd.pocmdd.models.Article;
+import com.mdd.pocmdd.models.Comment;
+import com.mdd.pocmdd.models.Theme;
+import com.mdd.pocmdd.models.User;
+
+/**
+ * Coût de l'assemblage des DTO pour une page : le mapper MapStruct des
+ * articles face aux DTO construits à la main par CommentService et UserService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MappingBenchmark {
+
+	@Param({ "20", "100" })
+	private int pageSize;
+
+	private final ArticleMapper articleMapper = new ArticleMapperImpl();
+	private List<Article> articles;
+	private List<Comment> comments;
+	private User user;
+
+	@Setup
+	public void setUp() {
+		List<Theme> themes = Fixtures.themes(10);
+		List<User> authors = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) {
+			authors.add(Fixtures.user(id, themes.subList(0, 3)));
+		}
+		articles = Fixtures.articles(pageSize, themes, authors);
+		comments = Fixtures.comments(pageSize, articles.get(0), authors);
+		user = Fixtures.user(1000, themes);
+	}
+
+	@Benchmark
+	public List<ArticleDTO> articlePageWithMapStruct() {
+		List<ArticleDTO> page = new ArrayList<>(articles.size());
+		for (Article article : articles) {
+			page.add(articleMapper.toDto(article));
+		}
+		return page;
+	}
+
+	/**
+	 * Même construction que CommentService.toDto.
+	 */
+	@Benchmark
+	public List<CommentDTO> commentPageByHand() {
+		List<CommentDTO> page = new ArrayList<>(comments.size());
+		for (Comment comment : comments) {
+			page.add(new CommentDTO(comment.getId(), comment.getContent(), comment.getUser().getId(),
+					comment.getUser().getUsername(), comment.getArticle().getId()));
+		}
+		return page;
+	}
+
+	/**
+	 * Même construction que UserService.findById.
+	 */
+	@Benchmark
+	public UserDTO userProfileByHand() {
+		UserDTO userDTO = new UserDTO();
+		userDTO.setId(user.getId());
+		userDTO.setUsername(user.getUsername());
+		userDTO.setEmail(user.getEmail());
+		List<ThemeDTO> themes = user.getSubscribedThemes().stream()
+				.map(theme -> new ThemeDTO(theme.getId(), theme.getTitle(), theme.getDescription()))
+				.toList();
+		userDTO.setSubscribedThemes(themes);
+		return userDTO;
+	}
+}
@@ -0,0 +1,74 @@
+package com.mdd.pocmdd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.mdd.pocmdd.dto.ArticleDTO;
+import com.mdd.pocmdd.models.Theme;
+import com.mdd.pocmdd.models.User;
+
+/**
+ * Coût de la sérialisation JSON d'une page d'articles, avec la même
+ * configuration Jackson que l'application (dates ISO-8601).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializationBenchmark {
+
+	@Param({ "20", "100" })
+	private int pageSize;
+
+	private final ObjectMapper objectMapper = JsonMapper.builder()
+			.findAndAddModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+	private List<ArticleDTO> articles;
+
+	@Setup
+	public void setUp() {
+		List<Theme> themes = Fixtures.themes(10);
+		List<User> authors = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) {
+			authors.add(Fixtures.user(id, themes.subList(0, 3)));
+		}
+		articles = Fixtures.articleDtos(Fixtures.articles(pageSize, themes, authors));
+	}
+
+	@Benchmark
+	public byte[] articlePage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(articles);
+	}
+
+	/**
+	 * Écriture article par article, comme la réponse NDJSON.
+	 */
+	@Benchmark
+	public int articleStream() throws JsonProcessingException {
+		int written = 0;
+		for (ArticleDTO article : articles) {
+			written += objectMapper.writeValueAsBytes(article).length + 1;
+		}
+		return written;
+	}
+}
@@ -0,0 +1,67 @@
+package com.mdd.pocmdd.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mdd.pocmdd.dto.ThemeDTO;
+import com.mdd.pocmdd.dto.UserDTO;
+import com.mdd.pocmdd.models.Theme;
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.payload.MeDto;
+
+/**
+ * Coût de getSubscribedThemeIds() sur l'entité et les deux DTO qui l'exposent,
+ * selon le nombre d'abonnements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SubscribedThemeIdsBenchmark {
+
+	@Param({ "3", "50" })
+	private int subscriptions;
+
+	private User user;
+	private UserDTO userDto;
+	private MeDto meDto;
+
+	@Setup
+	public void setUp() {
+		List<Theme> themes = Fixtures.themes(subscriptions);
+		List<ThemeDTO> themeDtos = Fixtures.themeDtos(themes);
+		user = Fixtures.user(1, themes);
+		userDto = new UserDTO();
+		userDto.setSubscribedThemes(themeDtos);
+		meDto = new MeDto(1L, "user1", "user1@example.com", themeDtos);
+	}
+
+	@Benchmark
+	public List<Long> fromUser() {
+		return user.getSubscribedThemeIds();
+	}
+
+	@Benchmark
+	public List<Long> fromUserDto() {
+		return userDto.getSubscribedThemeIds();
+	}
+
+	@Benchmark
+	public List<Long> fromMeDto() {
+		return meDto.getSubscribedThemeIds();
+	}
+}
@@ -0,0 +1,82 @@
+package com.mdd.pocmdd.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import com.mdd.pocmdd.config.CachingJwtDecoder;
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.services.JWTService;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Coût de l'émission d'un token et de sa vérification à chaque requête, avec
+ * et sans le cache des tokens déjà vérifiés.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TokenBenchmark {
+
+	/**
+	 * Clé HS256 de même longueur que celle de SecurityConfig.
+	 */
+	private static final byte[] KEY = "benchmark-key-of-32-bytes-length".getBytes(StandardCharsets.US_ASCII);
+
+	private JWTService jwtService;
+	private JwtDecoder nimbusDecoder;
+	private JwtDecoder cachingDecoder;
+	private User user;
+	private List<Long> themeIds;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		jwtService = new JWTService(new NimbusJwtEncoder(new ImmutableSecret<>(KEY)));
+		nimbusDecoder = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(KEY, "HmacSHA256"))
+				.macAlgorithm(MacAlgorithm.HS256).build();
+		cachingDecoder = new CachingJwtDecoder(nimbusDecoder, 10_000, new SimpleMeterRegistry(), Clock.systemUTC());
+		user = Fixtures.user(1, Fixtures.themes(5));
+		themeIds = user.getSubscribedThemeIds();
+		token = jwtService.generateToken(user, themeIds);
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtService.generateToken(user, themeIds);
+	}
+
+	@Benchmark
+	public Jwt decodeWithNimbus() {
+		return nimbusDecoder.decode(token);
+	}
+
+	@Benchmark
+	public Jwt decodeWithCache() {
+		return cachingDecoder.decode(token);
+	}
+}
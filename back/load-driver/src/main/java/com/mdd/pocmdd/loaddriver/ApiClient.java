@@ -0,0 +1,83 @@
+package com.mdd.pocmdd.loaddriver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Client de l'API mdd : chaque appel est chronométré et compté dans le rapport
+ * de la phase en cours, sous le nom de son point d'accès.
+ */
+final class ApiClient {
+
+	private final HttpClient http;
+	private final String baseUrl;
+	private final ObjectMapper json = new ObjectMapper();
+	private final AtomicReference<LatencyReport> report = new AtomicReference<>(new LatencyReport());
+
+	ApiClient(String baseUrl) {
+		this.baseUrl = baseUrl;
+		this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10)).build();
+	}
+
+	/**
+	 * Commence une nouvelle phase et renvoie le rapport de la précédente.
+	 */
+	LatencyReport startPhase() {
+		return report.getAndSet(new LatencyReport());
+	}
+
+	JsonNode get(String endpoint, String path, String token) {
+		return send(endpoint, request(path, token).GET());
+	}
+
+	JsonNode post(String endpoint, String path, String token, Object body) {
+		try {
+			return send(endpoint, request(path, token).header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body))));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private HttpRequest.Builder request(String path, String token) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(30));
+		if (token != null) {
+			builder.header("Authorization", "Bearer " + token);
+		}
+		return builder;
+	}
+
+	/**
+	 * Envoie la requête et renvoie le corps JSON de la réponse, ou null si la
+	 * requête a échoué (statut hors 2xx ou erreur réseau).
+	 */
+	private JsonNode send(String endpoint, HttpRequest.Builder builder) {
+		long start = System.nanoTime();
+		try {
+			HttpResponse<byte[]> response = http.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+			long elapsed = System.nanoTime() - start;
+			boolean success = response.statusCode() / 100 == 2;
+			report.get().record(endpoint, elapsed, success);
+			if (!success) {
+				return null;
+			}
+			return response.body().length == 0 ? json.nullNode() : json.readTree(response.body());
+		} catch (IOException e) {
+			report.get().record(endpoint, System.nanoTime() - start, false);
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.mdd.pocmdd.loaddriver;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latences et erreurs relevées pendant une phase, par point d'accès.
+ */
+final class LatencyReport {
+
+	private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+	void record(String endpoint, long nanos, boolean success) {
+		endpoints.computeIfAbsent(endpoint, key -> new EndpointStats()).record(nanos, success);
+	}
+
+	/**
+	 * Affiche, pour chaque point d'accès, le débit et les percentiles de latence.
+	 *
+	 * @param out     la sortie.
+	 * @param title   le titre du rapport.
+	 * @param seconds la durée de la phase, pour le calcul du débit.
+	 */
+	void print(PrintStream out, String title, double seconds) {
+		out.println();
+		out.println("== " + title + " (" + Math.round(seconds) + " s) ==");
+		out.printf("%-32s %8s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms",
+				"p90 ms", "p99 ms", "max ms");
+		long totalRequests = 0;
+		for (Map.Entry<String, EndpointStats> entry : new TreeMap<>(endpoints).entrySet()) {
+			EndpointStats stats = entry.getValue();
+			long[] sorted = stats.sortedLatencies();
+			totalRequests += sorted.length + stats.errors;
+			out.printf("%-32s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), sorted.length, stats.errors,
+					sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.90),
+					percentile(sorted, 0.99), percentile(sorted, 1.0));
+		}
+		out.printf("%-32s %8d %7s %9.1f%n", "total", totalRequests, "", totalRequests / seconds);
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / 1_000_000.0;
+	}
+
+	/**
+	 * Latences des requêtes réussies d'un point d'accès et nombre d'échecs.
+	 */
+	private static final class EndpointStats {
+
+		private long[] latencies = new long[1024];
+		private int count;
+		private long errors;
+
+		private synchronized void record(long nanos, boolean success) {
+			if (!success) {
+				errors++;
+				return;
+			}
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = nanos;
+		}
+
+		private synchronized long[] sortedLatencies() {
+			long[] sorted = Arrays.copyOf(latencies, count);
+			Arrays.sort(sorted);
+			return sorted;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.mdd.pocmdd.loaddriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mdd.pocmdd.loaddriver.VirtualUser.Operation;
+
+/**
+ * Pilote de charge du backend mdd, à lancer contre une instance démarrée
+ * localement (par exemple avec le profil "perf", sur base embarquée) :
+ *
+ * <pre>
+ * mvn -f back/pom.xml spring-boot:run -Dspring-boot.run.profiles=perf
+ * java -Dload.users=200 -Dload.duration=60 -jar back/load-driver/target/load-driver.jar
+ * </pre>
+ *
+ * Le pilote inscrit et connecte des utilisateurs synthétiques, les abonne à des
+ * thèmes, puis chacun rejoue en boucle fermée un mélange d'opérations. Après
+ * une phase de chauffe, il affiche le débit et les percentiles de latence de
+ * chaque point d'accès.
+ *
+ * Options (propriétés système) :
+ * <ul>
+ * <li>load.url : adresse de l'application (http://localhost:8080)</li>
+ * <li>load.users : nombre d'utilisateurs simultanés (50)</li>
+ * <li>load.themes : nombre minimal de thèmes (10)</li>
+ * <li>load.subscriptions : abonnements par utilisateur (3)</li>
+ * <li>load.warmup, load.duration : durées de chauffe et de mesure en secondes
+ * (10, 60)</li>
+ * <li>load.mix : poids des opérations
+ * (feed=60,article=15,comments=15,comment=5,create=5)</li>
+ * <li>load.think-ms : pause entre deux opérations d'un utilisateur (0)</li>
+ * <li>load.seed : graine des tirages aléatoires (42)</li>
+ * </ul>
+ */
+public class LoadDriver {
+
+	private static final String PASSWORD = "Password1";
+
+	public static void main(String[] args) throws Exception {
+		String url = System.getProperty("load.url", "http://localhost:8080");
+		int users = Integer.getInteger("load.users", 50);
+		int themes = Integer.getInteger("load.themes", 10);
+		int subscriptions = Integer.getInteger("load.subscriptions", 3);
+		int warmupSeconds = Integer.getInteger("load.warmup", 10);
+		int durationSeconds = Integer.getInteger("load.duration", 60);
+		long thinkMillis = Long.getLong("load.think-ms", 0L);
+		long seed = Long.getLong("load.seed", 42L);
+		Map<Operation, Integer> mix = parseMix(
+				System.getProperty("load.mix", "feed=60,article=15,comments=15,comment=5,create=5"));
+
+		ApiClient api = new ApiClient(url);
+		long setupStart = System.nanoTime();
+		List<VirtualUser> virtualUsers = setUp(api, users, themes, subscriptions, seed);
+		LatencyReport setup = api.startPhase();
+		setup.print(System.out, "Préparation : " + virtualUsers.size() + " utilisateurs",
+				(System.nanoTime() - setupStart) / 1e9);
+
+		runPhase(virtualUsers, mix, warmupSeconds, thinkMillis);
+		api.startPhase();
+		runPhase(virtualUsers, mix, durationSeconds, thinkMillis);
+		api.startPhase().print(System.out, "Mesure : " + virtualUsers.size() + " utilisateurs, mix " + mix,
+				durationSeconds);
+	}
+
+	/**
+	 * Inscrit et connecte les utilisateurs, crée les thèmes manquants, abonne
+	 * chaque utilisateur à des thèmes tirés au hasard puis publie un premier
+	 * article par utilisateur pour que les fils ne soient pas vides.
+	 */
+	private static List<VirtualUser> setUp(ApiClient api, int users, int themes, int subscriptions, long seed) {
+		List<VirtualUser> virtualUsers = new ArrayList<>(users);
+		for (int i = 0; i < users; i++) {
+			VirtualUser user = new VirtualUser(api, "load" + seed + "u" + i, seed + i);
+			user.register(PASSWORD);
+			if (user.login(PASSWORD)) {
+				virtualUsers.add(user);
+			}
+		}
+		if (virtualUsers.isEmpty()) {
+			throw new IllegalStateException("Aucun utilisateur n'a pu se connecter");
+		}
+
+		List<Long> themeIds = ensureThemes(api, virtualUsers.get(0), themes);
+		for (VirtualUser user : virtualUsers) {
+			List<Long> candidates = new ArrayList<>(themeIds);
+			Collections.shuffle(candidates, user.random());
+			for (Long themeId : candidates.subList(0, Math.min(subscriptions, candidates.size()))) {
+				if (!user.themeIds().contains(themeId)) {
+					user.subscribe(themeId);
+				}
+			}
+			// Nouvelle connexion : le token transporte les abonnements à jour
+			user.login(PASSWORD);
+			user.execute(Operation.CREATE);
+		}
+		return virtualUsers;
+	}
+
+	private static List<Long> ensureThemes(ApiClient api, VirtualUser user, int themes) {
+		String token = tokenOf(api, user);
+		List<Long> themeIds = new ArrayList<>();
+		JsonNode existing = api.get("GET /api/themes", "/api/themes", token);
+		if (existing != null) {
+			existing.forEach(theme -> themeIds.add(theme.get("id").asLong()));
+		}
+		for (int i = themeIds.size(); i < themes; i++) {
+			JsonNode created = api.post("POST /api/theme", "/api/theme", token,
+					Map.of("title", "Thème de charge " + i, "description", "Thème créé par le pilote de charge"));
+			if (created != null && created.hasNonNull("id")) {
+				themeIds.add(created.get("id").asLong());
+			}
+		}
+		return themeIds;
+	}
+
+	private static String tokenOf(ApiClient api, VirtualUser user) {
+		JsonNode response = api.post("POST /api/auth/login", "/api/auth/login", null,
+				Map.of("usernameOrEmail", user.username(), "password", PASSWORD));
+		return response.get("token").asText();
+	}
+
+	/**
+	 * Fait tourner chaque utilisateur sur son propre thread pendant la durée
+	 * donnée.
+	 */
+	private static void runPhase(List<VirtualUser> users, Map<Operation, Integer> mix, int seconds,
+			long thinkMillis) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		List<Thread> threads = new ArrayList<>(users.size());
+		for (VirtualUser user : users) {
+			Thread thread = new Thread(() -> user.run(mix, deadline, thinkMillis), "load-" + user.username());
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private static Map<Operation, Integer> parseMix(String mix) {
+		Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+		for (String part : mix.split(",")) {
+			String[] entry = part.trim().split("=");
+			int weight = Integer.parseInt(entry[1].trim());
+			if (weight > 0) {
+				weights.put(Operation.valueOf(entry[0].trim().toUpperCase()), weight);
+			}
+		}
+		if (weights.isEmpty()) {
+			throw new IllegalArgumentException("load.mix ne contient aucune opération");
+		}
+		return weights;
+	}
+}
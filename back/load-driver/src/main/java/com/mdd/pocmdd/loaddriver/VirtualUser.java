@@ -0,0 +1,172 @@
+package com.mdd.pocmdd.loaddriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Utilisateur synthétique : rejoue en boucle fermée un mélange pondéré
+ * d'opérations (lecture du fil, d'un article, de ses commentaires, écriture
+ * d'un commentaire ou d'un article) jusqu'à l'échéance de la phase.
+ */
+final class VirtualUser {
+
+	/**
+	 * Nombre maximal d'articles connus gardés pour les lectures suivantes.
+	 */
+	private static final int KNOWN_ARTICLES = 200;
+
+	private final ApiClient api;
+	private final Random random;
+	private final String username;
+	private final List<Long> knownArticleIds = new ArrayList<>();
+
+	private String token;
+	private long userId;
+	private List<Long> themeIds = new ArrayList<>();
+
+	VirtualUser(ApiClient api, String username, long seed) {
+		this.api = api;
+		this.username = username;
+		this.random = new Random(seed);
+	}
+
+	String username() {
+		return username;
+	}
+
+	Random random() {
+		return random;
+	}
+
+	List<Long> themeIds() {
+		return themeIds;
+	}
+
+	/**
+	 * Crée le compte s'il n'existe pas encore (un refus signifie qu'il existe déjà).
+	 */
+	void register(String password) {
+		api.post("POST /api/auth/register", "/api/auth/register",
+				null, Map.of("username", username, "email", username + "@load.test", "password", password));
+	}
+
+	/**
+	 * Se connecte et relit son profil (ID et abonnements).
+	 */
+	boolean login(String password) {
+		JsonNode response = api.post("POST /api/auth/login", "/api/auth/login", null,
+				Map.of("usernameOrEmail", username, "password", password));
+		if (response == null || !response.hasNonNull("token")) {
+			return false;
+		}
+		token = response.get("token").asText();
+		JsonNode me = api.get("GET /api/me", "/api/me", token);
+		if (me == null) {
+			return false;
+		}
+		userId = me.get("id").asLong();
+		themeIds = new ArrayList<>();
+		me.path("subscribedThemes").forEach(theme -> themeIds.add(theme.get("id").asLong()));
+		return true;
+	}
+
+	void subscribe(long themeId) {
+		api.post("POST /api/subscribe/{themeId}", "/api/subscribe/" + themeId, token, Map.of());
+	}
+
+	/**
+	 * Rejoue des opérations tirées selon les poids donnés jusqu'à l'échéance.
+	 */
+	void run(Map<Operation, Integer> mix, long deadline, long thinkMillis) {
+		int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+		while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+			int draw = random.nextInt(totalWeight);
+			for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+				draw -= entry.getValue();
+				if (draw < 0) {
+					execute(entry.getKey());
+					break;
+				}
+			}
+			if (thinkMillis > 0) {
+				try {
+					Thread.sleep(thinkMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	void execute(Operation operation) {
+		switch (operation) {
+			case FEED -> readFeed();
+			case ARTICLE -> {
+				Long articleId = knownArticle();
+				if (articleId != null) {
+					api.get("GET /api/article/{id}", "/api/article/" + articleId, token);
+				}
+			}
+			case COMMENTS -> {
+				Long articleId = knownArticle();
+				if (articleId != null) {
+					api.get("GET /api/comments/article/{id}", "/api/comments/article/" + articleId + "?limit=20",
+							token);
+				}
+			}
+			case COMMENT -> {
+				Long articleId = knownArticle();
+				if (articleId != null) {
+					api.post("POST /api/comments/comment", "/api/comments/comment", token, Map.of(
+							"content", "Commentaire de " + username, "userId", userId, "articleId", articleId));
+				}
+			}
+			case CREATE -> {
+				if (!themeIds.isEmpty()) {
+					long themeId = themeIds.get(random.nextInt(themeIds.size()));
+					JsonNode article = api.post("POST /api/article", "/api/article", token, Map.of(
+							"title", "Article de " + username, "content", "Contenu généré par le pilote de charge",
+							"themeId", themeId));
+					if (article != null && article.hasNonNull("id")) {
+						remember(article.get("id").asLong());
+					}
+				}
+			}
+		}
+	}
+
+	private void readFeed() {
+		JsonNode page = api.get("GET /api/articles", "/api/articles?size=20", token);
+		if (page != null) {
+			page.path("articles").forEach(article -> remember(article.get("id").asLong()));
+		}
+	}
+
+	private Long knownArticle() {
+		if (knownArticleIds.isEmpty()) {
+			readFeed();
+		}
+		return knownArticleIds.isEmpty() ? null : knownArticleIds.get(random.nextInt(knownArticleIds.size()));
+	}
+
+	private void remember(long articleId) {
+		if (knownArticleIds.contains(articleId)) {
+			return;
+		}
+		if (knownArticleIds.size() == KNOWN_ARTICLES) {
+			knownArticleIds.remove(random.nextInt(KNOWN_ARTICLES));
+		}
+		knownArticleIds.add(articleId);
+	}
+
+	/**
+	 * Opérations rejouées par les utilisateurs synthétiques.
+	 */
+	enum Operation {
+		FEED, ARTICLE, COMMENTS, COMMENT, CREATE
+	}
+}
@@ -0,0 +1,3 @@
+-- Utilisateur de réplication, utilisé par le réplica
+CREATE USER 'repl'@'%' IDENTIFIED BY 'repl';
+GRANT REPLICATION SLAVE ON *.* TO 'repl'@'%';
@@ -0,0 +1,89 @@
+package com.mdd.pocmdd.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.mdd.pocmdd.services.LruCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Décodeur JWT qui garde en mémoire les tokens déjà vérifiés.
+ * Un client réutilise le même token pendant toute sa durée de validité : au
+ * lieu de revérifier la signature à chaque requête, le {@link Jwt} validé par le
+ * décodeur délégué est conservé, indexé par l'empreinte SHA-256 du token. Le
+ * cache est borné (les entrées les moins récemment utilisées sont évincées) et
+ * une entrée n'est jamais servie au-delà de la date d'expiration du token.
+ * Les tokens refusés ne sont pas mis en cache.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+	private final JwtDecoder delegate;
+	private final Clock clock;
+	private final LruCache<String, Jwt> verified;
+
+	private final Counter hits;
+	private final Counter misses;
+
+	/**
+	 * @param delegate      le décodeur qui vérifie réellement les tokens.
+	 * @param maxEntries    le nombre maximal de tokens gardés en mémoire.
+	 * @param meterRegistry le registre des métriques du cache.
+	 * @param clock         l'horloge utilisée pour contrôler l'expiration.
+	 */
+	public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, MeterRegistry meterRegistry, Clock clock) {
+		this.delegate = delegate;
+		this.clock = clock;
+		this.verified = new LruCache<>(maxEntries);
+		this.hits = Counter.builder("mdd.jwt.cache.requests").tag("result", "hit")
+				.description("Tokens servis depuis le cache sans revérification").register(meterRegistry);
+		this.misses = Counter.builder("mdd.jwt.cache.requests").tag("result", "miss")
+				.description("Tokens vérifiés par le décodeur délégué").register(meterRegistry);
+		Gauge.builder("mdd.jwt.cache.size", verified, LruCache::size)
+				.description("Nombre de tokens vérifiés gardés en mémoire").register(meterRegistry);
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		String key = digest(token);
+		Jwt jwt = verified.get(key);
+		if (jwt != null) {
+			if (isLive(jwt)) {
+				hits.increment();
+				return jwt;
+			}
+			// Token expiré : le décodeur délégué produira l'erreur habituelle
+			verified.remove(key);
+		}
+		misses.increment();
+		jwt = delegate.decode(token);
+		if (jwt.getExpiresAt() != null && isLive(jwt)) {
+			verified.put(key, jwt);
+		}
+		return jwt;
+	}
+
+	private boolean isLive(Jwt jwt) {
+		Instant expiresAt = jwt.getExpiresAt();
+		return expiresAt != null && clock.instant().isBefore(expiresAt);
+	}
+
+	private static String digest(String token) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 indisponible", e);
+		}
+	}
+}
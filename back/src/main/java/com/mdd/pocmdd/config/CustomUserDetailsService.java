@@ -23,10 +23,13 @@ public class CustomUserDetailsService implements UserDetailsService {
 	@Override
 	public UserDetails loadUserByUsername(String emailorUsername) throws UsernameNotFoundException {
 		 // Rechercher l'utilisateur par email ou nom d'utilisateur
-         com.mdd.pocmdd.models.User user = userRepository.findByEmail(emailorUsername);
-         if (user == null) {
-             user = userRepository.findByUsername(emailorUsername);
-         }
+         // Une seule requête ; une correspondance sur l'email est prioritaire
+         List<com.mdd.pocmdd.models.User> candidates = userRepository.findByEmailOrUsername(emailorUsername,
+                 emailorUsername);
+         com.mdd.pocmdd.models.User user = candidates.stream()
+                 .filter(candidate -> emailorUsername.equals(candidate.getEmail()))
+                 .findFirst()
+                 .orElse(candidates.isEmpty() ? null : candidates.get(0));
          if (user == null) {
              throw new UsernameNotFoundException("User not found with email or username: " + emailorUsername);
          }
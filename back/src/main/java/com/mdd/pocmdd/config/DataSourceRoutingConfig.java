@@ -0,0 +1,73 @@
+package com.mdd.pocmdd.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sources de données lorsqu'un réplica en lecture est configuré
+ * (mdd.datasource.replica.url) : un pool pour la base principale
+ * (spring.datasource.*), un pool pour le réplica (mdd.datasource.replica.*) et
+ * la source utilisée par JPA, qui route chaque connexion selon le mode de la
+ * transaction (voir {@link ReplicaRoutingDataSource}). Sans réplica, la source
+ * unique de Spring Boot est utilisée telle quelle.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mdd.datasource.replica.url")
+public class DataSourceRoutingConfig {
+
+	//Pool de la base principale, réglé par spring.datasource.hikari.*
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	//Pool du réplica, réglé par mdd.datasource.replica.hikari.* ; ses connexions sont en lecture seule
+	@Bean
+	@ConfigurationProperties("mdd.datasource.replica.hikari")
+	public HikariDataSource replicaDataSource(DataSourceProperties properties,
+			@Value("${mdd.datasource.replica.url}") String url,
+			@Value("${mdd.datasource.replica.username:${spring.datasource.username:}}") String username,
+			@Value("${mdd.datasource.replica.password:${spring.datasource.password:}}") String password) {
+		HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+				.driverClassName(properties.determineDriverClassName()).url(url).username(username)
+				.password(password).build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	//Source utilisée par JPA et JDBC : la connexion n'est obtenue qu'à la première requête SQL, une fois le mode de la transaction connu
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+			@Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+			@Value("${mdd.datasource.read-your-writes-ms:5000}") long readYourWritesMillis,
+			MeterRegistry meterRegistry) {
+		ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(readYourWritesMillis, meterRegistry);
+		routingDataSource.setTargetDataSources(Map.of(
+				ReplicaRoutingDataSource.Target.PRIMARY, primaryDataSource,
+				ReplicaRoutingDataSource.Target.REPLICA, replicaDataSource));
+		routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+		routingDataSource.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+}
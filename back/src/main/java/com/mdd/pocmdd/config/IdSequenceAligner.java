@@ -0,0 +1,88 @@
+package com.mdd.pocmdd.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mdd.pocmdd.models.IdGenerators;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Aligne les blocs d'IDs de la table id_sequences sur les données existantes.
+ * Les lignes insérées par auto-incrément (avant le passage aux IDs alloués par
+ * blocs, par bdd_p6.sql ou par le générateur de données) ont des IDs que les
+ * blocs ne doivent pas réattribuer : chaque compteur est avancé au-delà du plus
+ * grand ID de sa table, jamais reculé. L'alignement a lieu après la création
+ * des beans, avant l'ouverture du serveur HTTP.
+ */
+@Log4j2
+@Component
+public class IdSequenceAligner implements SmartInitializingSingleton {
+
+	/**
+	 * Tables dont les IDs sont alloués par blocs, nommées comme leur ligne dans
+	 * id_sequences.
+	 */
+	private static final List<String> TABLES = List.of("themes", "users", "articles", "comments");
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Constructeur pour injecter les dépendances nécessaires.
+	 *
+	 * @param jdbcTemplate l'accès JDBC aux tables.
+	 */
+	public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		align();
+	}
+
+	/**
+	 * Avance le compteur de chaque table au-delà de son plus grand ID. Le compteur
+	 * est placé un bloc entier plus loin : quelle que soit l'interprétation de la
+	 * valeur stockée par l'optimiseur (début ou fin du prochain bloc), aucun ID
+	 * alloué ne peut être déjà utilisé.
+	 * La mise à jour est atomique (greatest) : un bloc alloué en même temps par
+	 * une autre instance ne fait jamais reculer le compteur.
+	 * Appelée au démarrage, et par tout traitement qui insère des IDs explicites.
+	 */
+	public void align() {
+		for (String table : TABLES) {
+			Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+			if (maxId == null) {
+				continue;
+			}
+			long target = maxId + IdGenerators.ALLOCATION_SIZE + 1;
+			if (advance(table, target) == 0) {
+				try {
+					jdbcTemplate.update("insert into " + IdGenerators.TABLE + " (" + IdGenerators.SEGMENT_COLUMN
+							+ ", " + IdGenerators.VALUE_COLUMN + ") values (?, ?)", table, target);
+				} catch (DuplicateKeyException e) {
+					// Ligne créée entre-temps par l'allocation d'un bloc
+					advance(table, target);
+				}
+			}
+			log.info("Compteur d'IDs de {} aligné sur au moins {} (plus grand ID : {})", table, target, maxId);
+		}
+	}
+
+	/**
+	 * Avance le compteur d'une table jusqu'à la valeur cible, sans le reculer.
+	 *
+	 * @return le nombre de lignes trouvées (0 si la table n'a pas encore de
+	 *         compteur).
+	 */
+	private int advance(String table, long target) {
+		return jdbcTemplate.update("update " + IdGenerators.TABLE + " set " + IdGenerators.VALUE_COLUMN
+				+ " = greatest(coalesce(" + IdGenerators.VALUE_COLUMN + ", 0), ?) where "
+				+ IdGenerators.SEGMENT_COLUMN + " = ?", target, table);
+	}
+}
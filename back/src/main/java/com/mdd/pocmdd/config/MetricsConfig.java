@@ -0,0 +1,45 @@
+package com.mdd.pocmdd.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Configuration des métriques HTTP : les mesures http.server.requests sont
+ * étiquetées par méthode de contrôleur (handler=ArticleController.getArticles)
+ * en plus de l'URI, pour suivre la latence de chaque point d'accès.
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public ServerRequestObservationConvention handlerObservationConvention() {
+		return new DefaultServerRequestObservationConvention() {
+			@Override
+			public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+				return super.getLowCardinalityKeyValues(context).and(handler(context));
+			}
+		};
+	}
+
+	private static KeyValue handler(ServerRequestObservationContext context) {
+		return KeyValue.of("handler", handlerName(context.getCarrier()));
+	}
+
+	//Nom de la méthode de contrôleur ayant traité la requête, "none" pour les ressources statiques et les erreurs de sécurité
+	static String handlerName(HttpServletRequest request) {
+		Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+		if (handler instanceof HandlerMethod method) {
+			return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+		}
+		return "none";
+	}
+}
@@ -0,0 +1,241 @@
+package com.mdd.pocmdd.config;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import com.mdd.pocmdd.services.LruCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Choisit la base de chaque connexion : seules les transactions en lecture
+ * seule ouvertes par une méthode d'un service de l'application
+ * (@Transactional(readOnly = true) dans {@value #REPLICA_TRANSACTIONS}) lisent le
+ * réplica. Tout le reste passe par la base principale : écritures, accès hors
+ * transaction, et transactions ouvertes par Spring Data lui-même (findById,
+ * existsById, findAll... sont en lecture seule), qu'un chemin d'écriture
+ * appelle pour vérifier ce qu'il va modifier.
+ *
+ * Lecture de ses propres écritures : après la validation d'une transaction en
+ * écriture, l'utilisateur authentifié qui l'a faite lit la base principale
+ * pendant une fenêtre configurable, le temps que le réplica rattrape son retard.
+ * La date de l'écriture est retenue par l'instance et renvoyée au client dans
+ * un cookie, pour qu'une autre instance derrière le répartiteur de charge la
+ * connaisse aussi.
+ *
+ * Cache de second niveau : une session qui lit le réplica ne l'alimente pas
+ * (elle le lit seulement). Un réplica en retard renverrait sinon des lignes
+ * antérieures à une écriture qui vient d'évincer leur entrée, et le cache les
+ * servirait ensuite à toutes les requêtes, base principale comprise.
+ *
+ * La clé est évaluée à l'obtention de la connexion ; la source doit donc être
+ * enveloppée dans un LazyConnectionDataSourceProxy, qui ne l'obtient qu'à la
+ * première requête SQL, une fois la transaction et son mode connus.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	/**
+	 * Base cible d'une connexion.
+	 */
+	public enum Target {
+		PRIMARY, REPLICA
+	}
+
+	/**
+	 * Préfixe du nom des transactions autorisées à lire le réplica : Spring nomme
+	 * une transaction d'après la méthode qui l'ouvre.
+	 */
+	static final String REPLICA_TRANSACTIONS = "com.mdd.pocmdd.services.";
+
+	/**
+	 * Cookie portant la date (en ms) de la dernière écriture validée du client.
+	 */
+	static final String LAST_WRITE_COOKIE = "mdd_last_write";
+
+	/**
+	 * Nombre maximal d'utilisateurs dont la dernière écriture est retenue.
+	 */
+	private static final int MAX_WRITERS = 10000;
+
+	/**
+	 * Vrai pendant {@link #onPrimary(Supplier)} : les lectures du thread
+	 * courant passent par la base principale.
+	 */
+	private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+	private final long readYourWritesMillis;
+
+	/**
+	 * Date de la dernière écriture validée de chaque utilisateur.
+	 */
+	private final LruCache<String, Long> lastWrites = new LruCache<>(MAX_WRITERS);
+
+	private final Counter primaryConnections;
+	private final Counter replicaConnections;
+	private final Counter readYourWritesConnections;
+
+	/**
+	 * @param readYourWritesMillis la durée pendant laquelle un utilisateur lit la
+	 *                             base principale après une écriture.
+	 * @param meterRegistry        le registre des métriques du routage.
+	 */
+	public ReplicaRoutingDataSource(long readYourWritesMillis, MeterRegistry meterRegistry) {
+		this.readYourWritesMillis = readYourWritesMillis;
+		this.primaryConnections = Counter.builder("mdd.datasource.routing").tag("target", "primary")
+				.description("Connexions obtenues, par base cible").register(meterRegistry);
+		this.replicaConnections = Counter.builder("mdd.datasource.routing").tag("target", "replica")
+				.description("Connexions obtenues, par base cible").register(meterRegistry);
+		this.readYourWritesConnections = Counter.builder("mdd.datasource.routing.read-your-writes")
+				.description("Lectures envoyées à la base principale après une écriture de l'utilisateur")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Exécute une lecture sur la base principale, même dans une transaction en
+	 * lecture seule : pour les données qui doivent refléter une écriture qui
+	 * vient d'être validée, quel que soit l'utilisateur.
+	 *
+	 * @param <T>    le type du résultat.
+	 * @param action la lecture à exécuter.
+	 * @return le résultat de la lecture.
+	 */
+	public static <T> T onPrimary(Supplier<T> action) {
+		Boolean previous = PRIMARY_ONLY.get();
+		PRIMARY_ONLY.set(Boolean.TRUE);
+		try {
+			return action.get();
+		} finally {
+			if (previous == null) {
+				PRIMARY_ONLY.remove();
+			} else {
+				PRIMARY_ONLY.set(previous);
+			}
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		String user = currentUser();
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				HttpServletResponse response = currentResponse();
+				if (user != null || response != null) {
+					// La fenêtre commence à la validation, pas à la première requête
+					TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+						@Override
+						public void afterCommit() {
+							stampWrite(user, response);
+						}
+					});
+				}
+			}
+			primaryConnections.increment();
+			return Target.PRIMARY;
+		}
+		String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+		if (PRIMARY_ONLY.get() != null || transactionName == null
+				|| !transactionName.startsWith(REPLICA_TRANSACTIONS)) {
+			primaryConnections.increment();
+			return Target.PRIMARY;
+		}
+		if (wroteRecently(user)) {
+			readYourWritesConnections.increment();
+			primaryConnections.increment();
+			return Target.PRIMARY;
+		}
+		replicaConnections.increment();
+		readCacheOnly();
+		return Target.REPLICA;
+	}
+
+	/**
+	 * Passe les sessions Hibernate de la transaction en cours en lecture seule du
+	 * cache de second niveau : les entités et collections lues sur le réplica n'y
+	 * sont pas ajoutées. La connexion est obtenue avant la première requête SQL,
+	 * donc avant tout ajout au cache ; la session est fermée avec la transaction.
+	 */
+	private static void readCacheOnly() {
+		for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+			if (resource instanceof EntityManagerHolder holder) {
+				holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+			}
+		}
+	}
+
+	/**
+	 * Retient la date d'une écriture validée, dans l'instance et dans le cookie
+	 * de la réponse en cours.
+	 */
+	private void stampWrite(String user, HttpServletResponse response) {
+		long now = System.currentTimeMillis();
+		if (user != null) {
+			lastWrites.put(user, now);
+		}
+		if (response != null && !response.isCommitted()) {
+			ResponseCookie cookie = ResponseCookie.from(LAST_WRITE_COOKIE, Long.toString(now)).path("/")
+					.httpOnly(true).sameSite("Lax").maxAge(Duration.ofMillis(readYourWritesMillis)).build();
+			response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+		}
+	}
+
+	/**
+	 * @return vrai si l'utilisateur, ou le client de la requête en cours, a validé
+	 *         une écriture pendant la fenêtre.
+	 */
+	private boolean wroteRecently(String user) {
+		long now = System.currentTimeMillis();
+		Long lastWrite = user == null ? null : lastWrites.get(user);
+		if (lastWrite != null && now - lastWrite < readYourWritesMillis) {
+			return true;
+		}
+		HttpServletRequest request = currentRequest();
+		Cookie cookie = request == null ? null : WebUtils.getCookie(request, LAST_WRITE_COOKIE);
+		if (cookie == null) {
+			return false;
+		}
+		try {
+			return now - Long.parseLong(cookie.getValue()) < readYourWritesMillis;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static HttpServletRequest currentRequest() {
+		return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+				? attributes.getRequest()
+				: null;
+	}
+
+	private static HttpServletResponse currentResponse() {
+		return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+				? attributes.getResponse()
+				: null;
+	}
+
+	/**
+	 * @return le nom de l'utilisateur authentifié (son ID pour un token JWT), ou
+	 *         null hors requête authentifiée.
+	 */
+	private static String currentUser() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null || !authentication.isAuthenticated() ? null : authentication.getName();
+	}
+}
@@ -3,7 +3,9 @@ package com.mdd.pocmdd.config;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import java.time.Clock;
 import javax.crypto.spec.SecretKeySpec;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,6 +22,8 @@ import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 
 @Configuration
@@ -28,6 +32,21 @@ public class SecurityConfig {
 
 	//Clé secrète utilisée pour signer les tokens JWT
 	private String jwtKey = "MJKiHixapXXXwLS93K3RDTriSQJ2K8vC";
+
+	//Coût BCrypt des mots de passe, ajustable selon la latence de connexion mesurée
+	@Value("${security.bcrypt.strength:10}")
+	private int bcryptStrength;
+
+	//Nombre maximal de tokens vérifiés gardés en cache par le décodeur
+	@Value("${security.jwt.cache.max-entries:10000}")
+	private int jwtCacheMaxEntries;
+
+	//Port d'administration (actuator), distinct du port de l'application ; -1 s'il n'est pas configuré
+	@Value("${management.server.port:-1}")
+	private int managementPort;
+
+	@Value("${server.port:8080}")
+	private int serverPort;
 	
 	@Autowired
 	private CustomUserDetailsService customUserDetailsService;
@@ -37,11 +56,19 @@ public class SecurityConfig {
 	        http.csrf(csrf -> csrf.disable())	        
 	            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 	            .authorizeHttpRequests(auth -> auth 
+	            // Port d'administration (actuator), non exposé publiquement : sondes et collecte Prometheus sans token
+	            .requestMatchers(request -> managementPort > 0 && managementPort != serverPort
+	                    && request.getLocalPort() == managementPort).permitAll()
                 .requestMatchers("/api/auth/login").permitAll()
                 .requestMatchers("/api/auth/register").permitAll()
 	            .requestMatchers("/api/register").permitAll()// Permettre l'accès sans authentification à /api/auth/register
+	            .requestMatchers("/livez", "/readyz").permitAll()// Sondes de santé du port de l'application
+	            // Réponses asynchrones (flux SSE et NDJSON) : la requête initiale a déjà été authentifiée
+	            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 	            .anyRequest().authenticated())
-	            .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
+	            // Les abonnements transportés par le token sont exposés par SubscriberAuthenticationToken
+	            .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt
+	                    .jwtAuthenticationConverter(new SubscriberJwtAuthenticationConverter())))
 	            .httpBasic(Customizer.withDefaults());
 
 	        // Register the DaoAuthenticationProvider
@@ -56,12 +83,13 @@ public class SecurityConfig {
 		return new NimbusJwtEncoder(new ImmutableSecret<>(this.jwtKey.getBytes()));
 	}
 	
-	//décoder les JWT en utilisant la clé secrète définie
+	//décoder les JWT en utilisant la clé secrète définie ; les tokens déjà vérifiés sont gardés en cache
 	@Bean
-	public JwtDecoder jwtDecoder() {
+	public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
 		SecretKeySpec secretKey = new SecretKeySpec(this.jwtKey.getBytes(), "HmacSHA256");
-	return NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
-}
+		JwtDecoder nimbusDecoder = NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+		return new CachingJwtDecoder(nimbusDecoder, jwtCacheMaxEntries, meterRegistry, Clock.systemUTC());
+	}
 
 	//Fournisseur d'authentification basé sur DAO qui utilise le CustomUserDetailsService pour charger les détails de l'utilisateur et un encodeur de mot de passe (BCryptPasswordEncoder)
 	@Bean
@@ -83,7 +111,7 @@ public class SecurityConfig {
 
 	@Bean
 	public BCryptPasswordEncoder  passwordEncoder() {
-		return new BCryptPasswordEncoder();
+		return new BCryptPasswordEncoder(bcryptStrength);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.mdd.pocmdd.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Mesure le nombre de requêtes SQL exécutées par chaque requête HTTP (voir
+ * {@link StatementCounter}) et le compare au budget configuré : un
+ * dépassement, signe probable d'un N+1, est journalisé en WARN et compté dans
+ * mdd.http.statements.over.budget. Le nombre est aussi exposé dans l'attribut
+ * de requête {@link #STATEMENT_COUNT_ATTRIBUTE} pour les tests.
+ * Les corps écrits en flux (NDJSON) le sont hors de la requête et ne sont pas
+ * comptés.
+ */
+@Log4j2
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+	/**
+	 * Attribut de requête contenant le nombre de requêtes SQL exécutées.
+	 */
+	public static final String STATEMENT_COUNT_ATTRIBUTE = StatementBudgetFilter.class.getName() + ".count";
+
+	private final MeterRegistry meterRegistry;
+	private final int budget;
+
+	/**
+	 * Constructeur pour injecter les dépendances et la configuration du filtre.
+	 *
+	 * @param meterRegistry le registre des métriques.
+	 * @param budget        le nombre maximal de requêtes SQL attendu par requête
+	 *                      HTTP.
+	 */
+	public StatementBudgetFilter(MeterRegistry meterRegistry, @Value("${mdd.statements.budget:10}") int budget) {
+		this.meterRegistry = meterRegistry;
+		this.budget = budget;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		StatementCounter.start();
+		int statements;
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			statements = StatementCounter.stop();
+		}
+		request.setAttribute(STATEMENT_COUNT_ATTRIBUTE, statements);
+
+		String handler = MetricsConfig.handlerName(request);
+		DistributionSummary.builder("mdd.http.statements").baseUnit("statements").tag("handler", handler)
+				.description("Requêtes SQL exécutées par requête HTTP").register(meterRegistry).record(statements);
+		if (statements > budget) {
+			Counter.builder("mdd.http.statements.over.budget").tag("handler", handler)
+					.description("Requêtes HTTP ayant dépassé le budget de requêtes SQL").register(meterRegistry)
+					.increment();
+			log.warn("{} {} ({}) : {} requêtes SQL pour un budget de {}", request.getMethod(),
+					request.getRequestURI(), handler, statements, budget);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.mdd.pocmdd.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate sur le thread courant.
+ * Déclaré dans hibernate.session_factory.statement_inspector ; le comptage
+ * n'a lieu qu'entre {@link #start()} et {@link #stop()}, appelés par
+ * {@link StatementBudgetFilter} autour de chaque requête HTTP.
+ */
+public class StatementCounter implements StatementInspector {
+
+	private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+	/**
+	 * Démarre le comptage sur le thread courant.
+	 */
+	public static void start() {
+		COUNT.set(new int[1]);
+	}
+
+	/**
+	 * Arrête le comptage sur le thread courant.
+	 *
+	 * @return le nombre de requêtes SQL préparées depuis {@link #start()}, ou 0
+	 *         si le comptage n'était pas démarré.
+	 */
+	public static int stop() {
+		int[] count = COUNT.get();
+		COUNT.remove();
+		return count == null ? 0 : count[0];
+	}
+
+	@Override
+	public String inspect(String sql) {
+		int[] count = COUNT.get();
+		if (count != null) {
+			count[0]++;
+		}
+		return sql;
+	}
+}
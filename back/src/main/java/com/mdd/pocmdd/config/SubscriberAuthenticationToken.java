@@ -0,0 +1,45 @@
+package com.mdd.pocmdd.config;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Authentification issue d'un JWT, exposant les abonnements transportés par le
+ * token. {@link #getName()} reste l'ID de l'utilisateur (sujet du token).
+ */
+public class SubscriberAuthenticationToken extends JwtAuthenticationToken {
+
+	private final List<Long> themeIds;
+	private final Long subscriptionVersion;
+
+	/**
+	 * @param jwt                 le token vérifié.
+	 * @param authorities         les autorités accordées.
+	 * @param themeIds            les IDs des thèmes suivis lus dans le token, ou
+	 *                            null si le token n'en contient pas.
+	 * @param subscriptionVersion la version des abonnements lue dans le token, ou
+	 *                            null.
+	 */
+	public SubscriberAuthenticationToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities,
+			List<Long> themeIds, Long subscriptionVersion) {
+		super(jwt, authorities, jwt.getSubject());
+		this.themeIds = themeIds == null ? null : List.copyOf(themeIds);
+		this.subscriptionVersion = subscriptionVersion;
+	}
+
+	public Long getUserId() {
+		return Long.valueOf(getName());
+	}
+
+	public List<Long> getThemeIds() {
+		return themeIds;
+	}
+
+	public Long getSubscriptionVersion() {
+		return subscriptionVersion;
+	}
+}
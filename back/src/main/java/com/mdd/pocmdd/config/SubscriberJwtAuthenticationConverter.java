@@ -0,0 +1,33 @@
+package com.mdd.pocmdd.config;
+
+import java.util.List;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import com.mdd.pocmdd.services.JWTService;
+
+/**
+ * Convertit un JWT vérifié en {@link SubscriberAuthenticationToken}, en lisant
+ * les revendications d'abonnement ajoutées par {@link JWTService}. Un token
+ * émis sans ces revendications donne une authentification sans abonnements.
+ */
+public class SubscriberJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+	private final JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+
+	@Override
+	public AbstractAuthenticationToken convert(Jwt jwt) {
+		List<Long> themeIds = null;
+		Object themes = jwt.getClaim(JWTService.THEMES_CLAIM);
+		if (themes instanceof List<?> values) {
+			themeIds = values.stream().map(value -> ((Number) value).longValue()).toList();
+		}
+		Object version = jwt.getClaim(JWTService.SUBSCRIPTION_VERSION_CLAIM);
+		Long subscriptionVersion = version instanceof Number number ? number.longValue() : null;
+		return new SubscriberAuthenticationToken(jwt, authoritiesConverter.convert(jwt), themeIds,
+				subscriptionVersion);
+	}
+}
@@ -2,21 +2,37 @@ package com.mdd.pocmdd.controllers;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestMapping;
+import com.mdd.pocmdd.config.SubscriberAuthenticationToken;
+import com.mdd.pocmdd.services.ArticleImportService;
 import com.mdd.pocmdd.services.ArticleService;
+import com.mdd.pocmdd.services.ArticleStreamService;
 import com.mdd.pocmdd.services.UserService;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestHeader;
 import com.mdd.pocmdd.dto.ArticleDTO;
-import com.mdd.pocmdd.dto.UserDTO;
+import com.mdd.pocmdd.dto.FeedPageDTO;
 import com.mdd.pocmdd.payload.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.log4j.Log4j2;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.servlet.http.HttpServletRequest;
 
 @Log4j2
 @CrossOrigin(origins = "http://localhost:4200") // Permet l'accès depuis l'application frontend (Angular) à partir de ce
@@ -29,48 +45,156 @@ public class ArticleController {
     private ArticleService articleService; // Injection du service ArticleService qui contient la logique métier liée
                                            // aux articles.
 
+    @Autowired
+    private ArticleImportService articleImportService; // Import en masse des articles.
+
+    @Autowired
+    private ArticleStreamService articleStreamService; // Diffusion des nouveaux articles par Server-Sent Events.
+
     @Autowired
     private UserService userService; // Injection du service UserService qui permet de gérer les utilisateurs.
 
+    @Autowired
+    private ObjectMapper objectMapper; // Sérialiseur JSON utilisé pour les réponses en flux.
+
     /**
-     * Récupère tous les articles en fonction des thèmes auxquels l'utilisateur est
-     * abonné.
+     * Récupère une page d'articles en fonction des thèmes auxquels l'utilisateur
+     * est abonné, du plus récent au plus ancien.
+     * La réponse porte un ETag dérivé des thèmes suivis et du dernier article du
+     * fil : tant qu'aucun article n'est publié, le client reçoit un 304.
      * 
      * @param authentication L'authentification de l'utilisateur courant.
-     * @return Une réponse contenant la liste des articles ou un message d'erreur.
+     * @param cursor         Le curseur renvoyé par la page précédente (absent pour
+     *                       la première page).
+     * @param size           Le nombre d'articles par page.
+     * @param request        La requête, pour la vérification de If-None-Match.
+     * @return Une réponse contenant la page d'articles ou un message d'erreur.
      */
     @GetMapping("/articles")
-    public ResponseEntity<?> getArticles(Authentication authentication) {
-        log.info("Request to get all articles");
+    public ResponseEntity<?> getArticles(Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        log.info("Request to get articles, cursor: {}, size: {}", cursor, size);
 
         // Récupère les thèmes auxquels l'utilisateur est abonné.
-        UserDTO userDto = userService.findById(Long.valueOf(authentication.getName()));
-        List<Long> themeids = userDto.getSubscribedThemeIds();
+        Long userId = Long.valueOf(authentication.getName());
+        List<Long> themeids = getSubscribedThemeIds(authentication);
 
         try {
-            // Récupère les articles liés aux thèmes de l'utilisateur.
-            List<ArticleDTO> articles = articleService.findallArticleByTheme(themeids);
-            return ResponseEntity.ok().body(articles); // Retourne la liste des articles.
+            // Le fil n'est rechargé que s'il a changé depuis la version connue du client.
+            String etag = "\"feed-" + articleService.getFeedVersion(userId, themeids) + "-" + size
+                    + (cursor == null ? "" : "-" + cursor) + "\"";
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            // Récupère la page d'articles du fil de l'utilisateur.
+            FeedPageDTO page = articleService.findallArticleByTheme(userId, themeids, cursor, size);
+            return ResponseEntity.ok().eTag(etag).body(page); // Retourne la page d'articles.
         } catch (Exception e) {
             // En cas d'erreur, retourne un message d'erreur.
             return ResponseEntity.badRequest().body(new MessageResponse("Articles not found"));
         }
     }
 
+    /**
+     * Recherche des articles par leur titre et leur contenu, classés par
+     * pertinence.
+     * 
+     * @param q       Le texte recherché.
+     * @param themeId L'ID du thème auquel restreindre la recherche (facultatif).
+     * @param limit   Le nombre maximal de résultats.
+     * @return Une réponse contenant les articles trouvés ou un message d'erreur.
+     */
+    @GetMapping("/articles/search")
+    public ResponseEntity<?> searchArticles(@RequestParam String q,
+            @RequestParam(required = false) Long themeId,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("Request to search articles, q: {}, themeId: {}, limit: {}", q, themeId, limit);
+
+        try {
+            List<ArticleDTO> articles = articleService.searchArticles(q, themeId, limit);
+            return ResponseEntity.ok().body(articles); // Retourne les articles trouvés.
+        } catch (Exception e) {
+            // En cas d'erreur, retourne un message d'erreur.
+            return ResponseEntity.badRequest().body(new MessageResponse("Search failed"));
+        }
+    }
+
+    /**
+     * Récupère en flux tous les articles des thèmes auxquels l'utilisateur est
+     * abonné, au format NDJSON (un article JSON par ligne). Sélectionné lorsque le
+     * client envoie « Accept: application/x-ndjson » : les articles sont lus et
+     * écrits un par un, sans construire la liste complète en mémoire.
+     * 
+     * @param authentication L'authentification de l'utilisateur courant.
+     * @return Une réponse dont le corps est écrit au fil de la lecture.
+     */
+    @GetMapping(value = "/articles", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamArticles(Authentication authentication) {
+        log.info("Request to stream all articles");
+
+        // Récupère les thèmes auxquels l'utilisateur est abonné.
+        List<Long> themeids = getSubscribedThemeIds(authentication);
+
+        // Chaque article est écrit dans la réponse dès qu'il est lu en base.
+        StreamingResponseBody body = out -> articleService.streamArticlesByTheme(themeids, article -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(article));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Ouvre un flux Server-Sent Events des nouveaux articles des thèmes auxquels
+     * l'utilisateur est abonné : chaque article créé est envoyé dans un événement
+     * « article » dont l'ID permet la reprise. Après une coupure, le client
+     * renvoie cet ID dans l'en-tête Last-Event-ID et reçoit les articles
+     * manqués ; s'ils ne sont plus disponibles, un événement « resync » lui
+     * demande de recharger son fil.
+     * 
+     * @param authentication L'authentification de l'utilisateur courant.
+     * @param lastEventId    L'ID du dernier événement reçu (absent pour une
+     *                       nouvelle connexion).
+     * @return L'émetteur du flux.
+     */
+    @GetMapping(value = "/articles/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNewArticles(Authentication authentication,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.info("Request to stream new articles, Last-Event-ID: {}", lastEventId);
+
+        Long userId = Long.valueOf(authentication.getName());
+        return articleStreamService.connect(userId, getSubscribedThemeIds(authentication), lastEventId);
+    }
+
     /**
      * Récupère un article spécifique par son ID.
+     * L'ETag de la réponse change lorsque l'article est modifié ou commenté.
      * 
-     * @param id L'ID de l'article à récupérer.
+     * @param id      L'ID de l'article à récupérer.
+     * @param request La requête, pour la vérification de If-None-Match.
      * @return Une réponse contenant l'article ou un message d'erreur.
      */
     @GetMapping("/article/{id}")
-    public ResponseEntity<?> getArticleById(@PathVariable Long id) {
+    public ResponseEntity<?> getArticleById(@PathVariable Long id, WebRequest request) {
         log.info("Request to get article by id: {}", id);
 
         try {
+            // La version de l'article est lue sans charger l'article ni ses commentaires.
+            Optional<String> version = articleService.getArticleVersion(id);
+            String etag = version.map(v -> "\"article-" + id + "-" + v + "\"").orElse(null);
+            if (etag != null && request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
             // Récupère l'article par son ID.
             ArticleDTO article = articleService.findArticleById(Long.valueOf(id));
-            return ResponseEntity.ok().body(article); // Retourne l'article.
+            return ResponseEntity.ok().eTag(etag).body(article); // Retourne l'article.
         } catch (Exception e) {
             // En cas d'erreur, retourne un message d'erreur.
             return ResponseEntity.badRequest().body(new MessageResponse("Article not found"));
@@ -104,4 +228,53 @@ public class ArticleController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    /**
+     * Importe en masse des articles envoyés au format NDJSON (un article JSON par
+     * ligne, voir ArticleImportRecord). Le corps de la requête est lu au fil de
+     * l'eau, et le résultat de chaque ligne (article créé, ligne rejetée ou lot
+     * en échec) est renvoyé en NDJSON dès que son lot est enregistré.
+     * 
+     * @param authentication L'authentification de l'utilisateur courant, auteur
+     *                       par défaut des articles.
+     * @param request        La requête, dont le corps est lu en flux.
+     * @return Une réponse dont le corps est écrit au fil de l'import.
+     * @throws IOException Si le corps de la requête ne peut pas être ouvert.
+     */
+    @PostMapping(value = "/articles/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importArticles(Authentication authentication,
+            HttpServletRequest request) throws IOException {
+        log.info("Request to import articles");
+
+        Long userId = Long.valueOf(authentication.getName());
+        InputStream input = request.getInputStream();
+
+        // Chaque résultat est écrit dans la réponse dès que son lot est traité.
+        StreamingResponseBody body = out -> articleImportService.importArticles(input, userId, result -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(result));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Récupère les IDs des thèmes suivis par l'utilisateur courant, depuis son
+     * token tant que ses abonnements n'ont pas changé, sinon depuis la base.
+     * 
+     * @param authentication L'authentification de l'utilisateur courant.
+     * @return Les IDs des thèmes suivis.
+     */
+    private List<Long> getSubscribedThemeIds(Authentication authentication) {
+        Long userId = Long.valueOf(authentication.getName());
+        if (authentication instanceof SubscriberAuthenticationToken subscriber) {
+            return userService.getSubscribedThemeIds(userId, subscriber.getThemeIds(),
+                    subscriber.getSubscriptionVersion());
+        }
+        return userService.getSubscribedThemeIds(userId);
+    }
 }
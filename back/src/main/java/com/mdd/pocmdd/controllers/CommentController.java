@@ -1,18 +1,27 @@
 package com.mdd.pocmdd.controllers;
 
 import com.mdd.pocmdd.dto.CommentDTO;
+import com.mdd.pocmdd.dto.CommentPageDTO;
 import com.mdd.pocmdd.payload.CommentPayload;
+import com.mdd.pocmdd.services.CommentQueueFullException;
 import com.mdd.pocmdd.services.CommentService;
+import com.mdd.pocmdd.services.CommentWriteBehindService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import org.springframework.web.bind.annotation.RequestBody;
 
 @Log4j2
@@ -24,38 +33,90 @@ public class CommentController {
 
     private final CommentService commentService; // Injection du service CommentService qui contient la logique métier
                                                  // liée aux commentaires.
+    private final CommentWriteBehindService commentWriteBehindService; // File d'écriture différée (optionnelle).
+    private final ObjectMapper objectMapper; // Sérialiseur JSON utilisé pour les réponses en flux.
 
-    // Constructeur pour l'injection du service CommentService.
-    public CommentController(CommentService commentService) {
+    // Constructeur pour l'injection des services de commentaires et du sérialiseur JSON.
+    public CommentController(CommentService commentService, CommentWriteBehindService commentWriteBehindService,
+            ObjectMapper objectMapper) {
         this.commentService = commentService;
+        this.commentWriteBehindService = commentWriteBehindService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Récupère la liste des commentaires associés à un article.
+     * Récupère une page de commentaires associés à un article.
      * 
      * @param articleId L'ID de l'article pour lequel récupérer les commentaires.
-     * @return Une réponse contenant la liste des commentaires de l'article.
+     * @param afterId   L'ID du dernier commentaire déjà reçu (absent pour la
+     *                  première page).
+     * @param limit     Le nombre maximal de commentaires dans la page.
+     * @return Une réponse contenant la page de commentaires et leur nombre total.
      */
     @GetMapping("/article/{articleId}")
-    public ResponseEntity<List<CommentDTO>> getCommentsByArticleId(@PathVariable Long articleId) {
-        // Récupère les commentaires de l'article en utilisant le service.
-        List<CommentDTO> comments = commentService.getCommentsByArticleId(articleId);
+    public ResponseEntity<CommentPageDTO> getCommentsByArticleId(@PathVariable Long articleId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int limit) {
+        // Récupère la page de commentaires de l'article en utilisant le service.
+        CommentPageDTO comments = commentService.getCommentsByArticleId(articleId, afterId, limit);
 
         // Retourne les commentaires dans la réponse avec un statut HTTP 200 (OK).
         return ResponseEntity.ok(comments);
     }
 
+    /**
+     * Récupère en flux les commentaires d'un article au format NDJSON (un
+     * commentaire JSON par ligne). Sélectionné lorsque le client envoie « Accept:
+     * application/x-ndjson » : les commentaires sont écrits au fil de la lecture.
+     * 
+     * @param articleId L'ID de l'article pour lequel récupérer les commentaires.
+     * @return Une réponse dont le corps est écrit au fil de la lecture.
+     */
+    @GetMapping(value = "/article/{articleId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCommentsByArticleId(@PathVariable Long articleId) {
+        log.info("Request to stream comments of article: {}", articleId);
+
+        StreamingResponseBody body = out -> commentService.streamCommentsByArticleId(articleId, comment -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(comment));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Sauvegarde un commentaire pour un article spécifique.
      * 
      * @param commentPayload L'objet contenant les informations du commentaire à
      *                       sauvegarder.
-     * @return Une réponse contenant le commentaire sauvegardé.
+     * @return Une réponse contenant le commentaire sauvegardé, ou, en écriture
+     *         différée, l'accusé de réception du commentaire mis en file (202).
      */
     @PostMapping("/comment")
     public ResponseEntity<CommentDTO> saveComment(@RequestBody CommentPayload commentPayload) {
         log.info("Request to save comment: {}", commentPayload); // Logge l'action de sauvegarde du commentaire.
 
+        // En écriture différée, le commentaire validé est enregistré plus tard, par lot.
+        if (commentWriteBehindService.isEnabled()) {
+            try {
+                CommentDTO accepted = commentWriteBehindService.submit(commentPayload);
+                if (accepted != null) {
+                    return ResponseEntity.status(HttpStatus.ACCEPTED).body(accepted);
+                }
+                // File pleine avec débordement SYNC : enregistrement immédiat ci-dessous.
+            } catch (IllegalArgumentException e) {
+                log.warn("Comment rejected: {}", e.getMessage());
+                return ResponseEntity.badRequest().build();
+            } catch (CommentQueueFullException e) {
+                log.warn("Comment rejected: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds())).build();
+            }
+        }
+
         // Sauvegarde le commentaire en utilisant le service et récupère l'objet
         // CommentDTO créé.
         CommentDTO comment = commentService.saveComment(commentPayload);
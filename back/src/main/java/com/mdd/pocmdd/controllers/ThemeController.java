@@ -1,6 +1,7 @@
 package com.mdd.pocmdd.controllers;
 
 import java.util.List;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import com.mdd.pocmdd.dto.ThemeDTO;
 import com.mdd.pocmdd.payload.MessageResponse;
 import com.mdd.pocmdd.services.ThemeService;
@@ -32,16 +34,24 @@ public class ThemeController {
 
     /**
      * Récupère la liste de tous les thèmes.
+     * La réponse porte un ETag dérivé du contenu du catalogue : un client qui
+     * renvoie cet ETag reçoit un 304 tant que le catalogue n'a pas changé, quelle
+     * que soit l'instance qui répond.
      * 
+     * @param request La requête, pour la vérification de l'en-tête If-None-Match.
      * @return Une réponse contenant la liste des thèmes.
      */
     @GetMapping("/themes")
-    public ResponseEntity<?> getThemes() {
+    public ResponseEntity<?> getThemes(WebRequest request) {
         log.info("Request to get all themes"); // Log l'action de récupération des thèmes.
         try {
+            String etag = "\"themes-" + themeService.getCatalog().getVersion() + "\"";
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             // Récupère la liste de tous les thèmes à partir du service.
             List<ThemeDTO> themes = themeService.getAllThemes();
-            return ResponseEntity.ok().body(themes); // Retourne la liste des thèmes avec un statut HTTP 200 OK.
+            return ResponseEntity.ok().eTag(etag).body(themes); // Retourne la liste des thèmes avec un statut HTTP 200 OK.
         } catch (Exception e) {
             // En cas d'erreur, retourne un message d'erreur avec un statut HTTP 400 Bad
             // Request.
@@ -52,16 +62,21 @@ public class ThemeController {
     /**
      * Récupère un thème spécifique par son ID.
      * 
-     * @param id L'ID du thème à récupérer.
+     * @param id      L'ID du thème à récupérer.
+     * @param request La requête, pour la vérification de l'en-tête If-None-Match.
      * @return Une réponse contenant le thème avec l'ID donné.
      */
     @GetMapping("/theme/{id}")
-    public ResponseEntity<?> getThemeById(@PathVariable Long id) {
+    public ResponseEntity<?> getThemeById(@PathVariable Long id, WebRequest request) {
         log.info("Request to get theme by id: {}", id); // Log l'action de récupération d'un thème par ID.
         try {
+            String etag = "\"theme-" + id + "-" + themeService.getCatalog().getVersion() + "\"";
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             // Récupère le thème spécifié par son ID à partir du service.
             ThemeDTO theme = themeService.getThemeById(id);
-            return ResponseEntity.ok().body(theme); // Retourne le thème trouvé avec un statut HTTP 200 OK.
+            return ResponseEntity.ok().eTag(etag).body(theme); // Retourne le thème trouvé avec un statut HTTP 200 OK.
         } catch (Exception e) {
             // En cas d'erreur (ex. si le thème n'est pas trouvé), retourne un message
             // d'erreur.
@@ -8,29 +8,29 @@ import com.mdd.pocmdd.repository.UserRespository;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import com.mdd.pocmdd.services.HashingOverloadedException;
 import com.mdd.pocmdd.services.UserService;
 import com.mdd.pocmdd.dto.LoginRequestDTO;
 import com.mdd.pocmdd.dto.RegisterDTO;
 import com.mdd.pocmdd.dto.UserDTO;
 import com.mdd.pocmdd.models.User;
 import com.mdd.pocmdd.payload.MessageResponse;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import com.mdd.pocmdd.services.JWTService;
 import com.mdd.pocmdd.payload.JwtResponse;
 import com.mdd.pocmdd.payload.MeDto;
-
-import org.springframework.security.core.AuthenticationException;
+import com.mdd.pocmdd.payload.SubscriptionResponse;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -46,27 +46,23 @@ public class UserController {
 
     private final UserService userService;
     private final UserRespository userRespository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
-    private final AuthenticationManager authenticationManager;
     private final JWTService jwtService;
 
+    /**
+     * Maximum number of themes in a bulk subscription request.
+     */
+    private static final int MAX_BULK_THEMES = 500;
+
     /**
      * Constructor for initializing dependencies.
      * 
      * @param userService           The service to handle user operations
      * @param userRespository       The repository to interact with the user data
-     * @param bCryptPasswordEncoder The password encoder for secure password
-     *                              handling
-     * @param authenticationManager The manager to handle authentication requests
      * @param jwtService            The service to generate JWT tokens
      */
-    public UserController(UserService userService, UserRespository userRespository,
-            BCryptPasswordEncoder bCryptPasswordEncoder, AuthenticationManager authenticationManager,
-            JWTService jwtService) {
+    public UserController(UserService userService, UserRespository userRespository, JWTService jwtService) {
         this.userService = userService;
         this.userRespository = userRespository;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
-        this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
     }
 
@@ -117,10 +113,12 @@ public class UserController {
 
     /**
      * Endpoint to subscribe the current user to a specific theme.
+     * Subscribing twice is a no-op.
      *
      * @param themeId        The theme ID to subscribe to
      * @param authentication The current authentication object
-     * @return The updated user data after subscribing to the theme
+     * @return The number of subscriptions added (0 or 1), and a fresh token if
+     *         it changed
      */
     @PostMapping("/subscribe/{themeId}")
     public ResponseEntity<?> subscribe(@PathVariable Long themeId, Authentication authentication) {
@@ -128,9 +126,30 @@ public class UserController {
         if (authentication.getName() == null || themeId == null) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Request body is empty!"));
         }
+        return subscribe(List.of(themeId), authentication);
+    }
+
+    /**
+     * Endpoint to subscribe the current user to several themes in one statement.
+     * Themes already followed or unknown are ignored.
+     *
+     * @param themeIds       The theme IDs to subscribe to
+     * @param authentication The current authentication object
+     * @return The number of subscriptions added, and a fresh token if any
+     */
+    @PostMapping("/subscribe")
+    public ResponseEntity<?> subscribe(@RequestBody List<Long> themeIds, Authentication authentication) {
+        log.info("Request to subscribe user: {} to themes {}", authentication.getName(), themeIds);
+        if (themeIds == null || themeIds.size() > MAX_BULK_THEMES) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: between 0 and " + MAX_BULK_THEMES + " themes expected"));
+        }
         try {
-            UserDTO userDTO = userService.subscribeUserToTheme(Long.valueOf(authentication.getName()), themeId);
-            return ResponseEntity.ok().body(userDTO);
+            Long userId = Long.valueOf(authentication.getName());
+            int changed = userService.subscribeUserToThemes(userId, themeIds);
+            return ResponseEntity.ok().body(subscriptionResponse(userId, changed));
+        } catch (DataIntegrityViolationException e) {
+            return concurrentSubscriptionChange(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
@@ -138,10 +157,12 @@ public class UserController {
 
     /**
      * Endpoint to unsubscribe the current user from a specific theme.
+     * Unsubscribing from a theme that is not followed is a no-op.
      *
      * @param themeId        The theme ID to unsubscribe from
      * @param authentication The current authentication object
-     * @return The updated user data after unsubscribing from the theme
+     * @return The number of subscriptions removed (0 or 1), and a fresh token
+     *         if it changed
      */
     @DeleteMapping("/unsubscribe/{themeId}")
     public ResponseEntity<?> unsubscribe(@PathVariable Long themeId, Authentication authentication) {
@@ -149,9 +170,28 @@ public class UserController {
         if (themeId == null) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Request body is empty!"));
         }
+        return unsubscribe(List.of(themeId), authentication);
+    }
+
+    /**
+     * Endpoint to unsubscribe the current user from several themes in one
+     * statement. Themes that are not followed are ignored.
+     *
+     * @param themeIds       The theme IDs to unsubscribe from
+     * @param authentication The current authentication object
+     * @return The number of subscriptions removed, and a fresh token if any
+     */
+    @PostMapping("/unsubscribe")
+    public ResponseEntity<?> unsubscribe(@RequestBody List<Long> themeIds, Authentication authentication) {
+        log.info("Request to unsubscribe user: {} from themes {}", authentication.getName(), themeIds);
+        if (themeIds == null || themeIds.size() > MAX_BULK_THEMES) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: between 0 and " + MAX_BULK_THEMES + " themes expected"));
+        }
         try {
-            UserDTO userDTO = userService.unsubscribeUserFromTheme(Long.valueOf(authentication.getName()), themeId);
-            return ResponseEntity.ok().body(userDTO);
+            Long userId = Long.valueOf(authentication.getName());
+            int changed = userService.unsubscribeUserFromThemes(userId, themeIds);
+            return ResponseEntity.ok().body(subscriptionResponse(userId, changed));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
@@ -159,6 +199,8 @@ public class UserController {
 
     /**
      * Endpoint to authenticate and log in a user.
+     * The user is resolved with a single query and the password hash is verified
+     * once.
      *
      * @param authRequest The login request containing the username or email and
      *                    password
@@ -167,36 +209,29 @@ public class UserController {
     @PostMapping("/auth/login")
     public ResponseEntity<?> login(@RequestBody LoginRequestDTO authRequest) {
         log.info("Login attempt for user with email or username: {}", authRequest.getUsernameOrEmail());
-        try {
-            User user = userService.findByEmail(authRequest.getUsernameOrEmail());
-            if (user == null) {
-                user = userService.findByUsername(authRequest.getUsernameOrEmail());
-                if (user == null) {
-                    log.warn("Login failed for user with emailorUsername: {} - User not found",
-                            authRequest.getUsernameOrEmail());
-                    return ResponseEntity.status(401).body(new MessageResponse("User not found"));
-                }
-            }
+        User user = userService.findByLogin(authRequest.getUsernameOrEmail());
+        if (user == null) {
+            log.warn("Login failed for user with emailorUsername: {} - User not found",
+                    authRequest.getUsernameOrEmail());
+            return ResponseEntity.status(401).body(new MessageResponse("User not found"));
+        }
 
-            if (user == null || !bCryptPasswordEncoder.matches(authRequest.getPassword(), user.getPassword())) {
+        try {
+            if (!userService.checkPassword(user, authRequest.getPassword())) {
                 log.warn("Login failed for user with email: {} - Invalid email or password",
                         authRequest.getUsernameOrEmail());
                 return ResponseEntity.status(401).body("Invalid email or password");
             }
+        } catch (HashingOverloadedException e) {
+            return tooManyRequests(e);
+        }
 
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(authRequest.getUsernameOrEmail(),
-                            authRequest.getPassword()));
-
-            String token = jwtService.generateToken(user);
-            JwtResponse jwtResponse = new JwtResponse(token);
-            log.info("Login successful for user with email: {}", authRequest.getUsernameOrEmail());
+        // Le token transporte les thèmes suivis, évitant de relire l'utilisateur pour le fil
+        String token = jwtService.generateToken(user, userService.getSubscribedThemeIds(user.getId()));
+        JwtResponse jwtResponse = new JwtResponse(token);
+        log.info("Login successful for user with email: {}", authRequest.getUsernameOrEmail());
 
-            return ResponseEntity.ok(jwtResponse);
-        } catch (AuthenticationException e) {
-            log.error("Login failed for user with email: {}", authRequest.getUsernameOrEmail(), e);
-            return ResponseEntity.status(401).body("Invalid email or password");
-        }
+        return ResponseEntity.ok(jwtResponse);
     }
 
     /**
@@ -233,9 +268,57 @@ public class UserController {
 
             log.info("Registration successful for user: {}", registerDTO.getUsername());
             return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+        } catch (HashingOverloadedException e) {
+            return tooManyRequests(e);
         } catch (IllegalArgumentException e) {
             log.error("Registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
     }
+
+    /**
+     * Builds the response of a subscription change. When subscriptions changed,
+     * a fresh token carrying the new themes and version is returned: the token
+     * held by the client is now stale, and every feed request made with it
+     * would read the subscriptions from the database.
+     *
+     * @param userId  The ID of the current user
+     * @param changed The number of subscriptions added or removed
+     * @return The subscription response
+     */
+    private SubscriptionResponse subscriptionResponse(Long userId, int changed) {
+        if (changed == 0) {
+            return new SubscriptionResponse(changed, null);
+        }
+        User user = userRespository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        return new SubscriptionResponse(changed,
+                jwtService.generateToken(user, userService.getSubscribedThemeIds(userId)));
+    }
+
+    /**
+     * Builds the response returned when a concurrent request inserted the same
+     * subscription first (unique constraint on the join table).
+     *
+     * @param e The constraint violation
+     * @return A 409 response; retrying the request is safe
+     */
+    private ResponseEntity<MessageResponse> concurrentSubscriptionChange(DataIntegrityViolationException e) {
+        log.warn("Concurrent subscription change: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new MessageResponse("Subscriptions changed concurrently, please retry"));
+    }
+
+    /**
+     * Builds the response returned when the password hashing pool is saturated.
+     *
+     * @param e The rejection raised by the hashing pool
+     * @return A 429 response with a Retry-After header
+     */
+    private ResponseEntity<MessageResponse> tooManyRequests(HashingOverloadedException e) {
+        log.warn("Request rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new MessageResponse(e.getMessage()));
+    }
 }
@@ -18,6 +18,7 @@ public class ArticleDTO {
     private Long themeId;
     private String authorName;
     private String themeTitle;
-    List<CommentDTO> comments; // Liste des commentaires associés à l'article
+    List<CommentDTO> comments; // Premiers commentaires associés à l'article
+    private Long commentCount; // Nombre total de commentaires de l'article
 
 }
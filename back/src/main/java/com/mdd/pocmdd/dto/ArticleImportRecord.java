@@ -0,0 +1,26 @@
+package com.mdd.pocmdd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Article à importer, lu sur une ligne du flux NDJSON de l'import en masse.
+ * Le thème est désigné par son ID ou par son titre. L'auteur est toujours
+ * l'utilisateur courant : s'il est précisé (nom d'utilisateur ou email), il
+ * doit le désigner. Sans date de création, l'article est daté de son import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleImportRecord {
+
+    private String title;
+    private String content;
+    private Long themeId;
+    private String themeTitle;
+    private String author;
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,25 @@
+package com.mdd.pocmdd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat de l'import d'une ligne du flux NDJSON : l'article créé, ou la
+ * raison du rejet (ligne invalide) ou de l'échec (lot non enregistré).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleImportResult {
+
+    public static final String CREATED = "created";
+    public static final String REJECTED = "rejected";
+    public static final String FAILED = "failed";
+
+    private int line;
+    private String status;
+    private Long articleId;
+    private String error;
+
+}
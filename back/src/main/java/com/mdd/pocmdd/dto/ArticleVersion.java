@@ -0,0 +1,21 @@
+package com.mdd.pocmdd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Version d'un article, lue sans charger l'article ni ses commentaires : sa
+ * date de dernière modification et son nombre de commentaires.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleVersion {
+
+    private Long articleId;
+    private LocalDateTime modifiedAt;
+    private long commentCount;
+
+}
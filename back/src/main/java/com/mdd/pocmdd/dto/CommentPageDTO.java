@@ -0,0 +1,22 @@
+package com.mdd.pocmdd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Page de commentaires d'un article : les commentaires de la page, le nombre
+ * total de commentaires de l'article et l'ID à transmettre pour obtenir la
+ * page suivante (null s'il n'y en a plus).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentPageDTO {
+
+    private List<CommentDTO> comments;
+    private long totalCount;
+    private Long nextAfterId;
+
+}
@@ -0,0 +1,20 @@
+package com.mdd.pocmdd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Page du fil d'actualité : les articles de la page et le curseur opaque
+ * permettant de demander la page suivante (null s'il n'y en a plus).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedPageDTO {
+
+    private List<ArticleDTO> articles;
+    private String nextCursor;
+
+}
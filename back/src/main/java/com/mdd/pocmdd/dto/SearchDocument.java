@@ -0,0 +1,20 @@
+package com.mdd.pocmdd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Texte indexable d'un article : son titre, son contenu et son thème.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchDocument {
+
+    private Long articleId;
+    private Long themeId;
+    private String title;
+    private String content;
+
+}
@@ -0,0 +1,21 @@
+package com.mdd.pocmdd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Entrée du fil d'actualité matérialisé : la référence d'un article et les
+ * seules informations nécessaires pour le trier et l'élaguer.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+
+    private Long articleId;
+    private LocalDateTime createdAt;
+    private Long themeId;
+
+}
@@ -25,5 +25,16 @@ public interface ArticleMapper extends EntityMapper<ArticleDTO, Article> {
     @Mapping(source = "user.username", target = "authorName") // Mappe le nom d'utilisateur à "authorName" dans le DTO
     @Mapping(source = "theme.id", target = "themeId") // Mappe l'ID du thème à "themeId" dans le DTO
     @Mapping(source = "theme.title", target = "themeTitle") // Mappe le titre du thème à "themeTitle" dans le DTO
+    @Mapping(target = "comments", ignore = true) // Les commentaires sont chargés séparément (évite une requête par article)
+    @Mapping(target = "commentCount", ignore = true) // Renseigné uniquement dans le détail d'un article
     ArticleDTO toDto(Article article); // Méthode qui effectue la conversion d'un Article en ArticleDTO
+
+    /**
+     * Convertit un ArticleDTO en Article.
+     * 
+     * @param articleDTO L'ArticleDTO à convertir.
+     * @return L'entité Article correspondante.
+     */
+    @Mapping(target = "commentCount", ignore = true) // Tenu à jour par l'application, jamais fourni par le client
+    Article toEntity(ArticleDTO articleDTO);
 }
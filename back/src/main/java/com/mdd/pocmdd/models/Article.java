@@ -1,5 +1,7 @@
 package com.mdd.pocmdd.models;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,11 +11,15 @@ import java.time.LocalDateTime;
 @Data
 @Entity
 @NoArgsConstructor
-@Table(name = "articles")
+// Index couvrant le fil d'actualité : filtre par thème puis tri par date et ID
+@Table(name = "articles", indexes = @Index(name = "idx_articles_theme_created", columnList = "theme_id, created_at, id"))
 public class Article {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "article_ids")
+    @TableGenerator(name = "article_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.SEGMENT_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "articles",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, length = 255)
@@ -22,17 +28,25 @@ public class Article {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
-    @Column(name = "created_at", nullable = false, unique = true)
+    // Pas de contrainte d'unicité : deux articles peuvent être créés dans la même milliseconde
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
-    @Column(name = "updated_at", unique = true)
+    @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @ManyToOne
+    // Nombre de commentaires, tenu à jour à chaque insertion (voir ArticleRepository.incrementCommentCount) :
+    // le détail d'un article ne compte pas ses commentaires
+    @ColumnDefault("0")
+    @Column(name = "comment_count", nullable = false)
+    private long commentCount;
+
+    // Chargement à la demande : les lectures précisent leur plan de chargement (voir ArticleRepository)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "theme_id", nullable = false)
     private Theme theme;
 
@@ -0,0 +1,27 @@
+package com.mdd.pocmdd.models;
+
+/**
+ * Paramètres communs de génération des IDs des entités.
+ * Les IDs sont alloués par blocs depuis la table id_sequences (une ligne par
+ * table d'entité, nommée comme elle) plutôt que par auto-incrément : Hibernate
+ * connaît l'ID avant l'insertion et peut donc regrouper les insertions en lots
+ * JDBC.
+ *
+ * Chaque instance réserve ses propres blocs : les IDs croissent au sein d'une
+ * instance, pas d'une instance à l'autre. Ils ne doivent donc pas servir à
+ * dater ou à ordonner des écritures de plusieurs instances.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_sequences";
+    public static final String SEGMENT_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+
+    /**
+     * Nombre d'IDs réservés à chaque lecture de la table id_sequences.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
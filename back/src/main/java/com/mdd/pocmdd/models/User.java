@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.List;
 import jakarta.validation.constraints.Email;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -19,6 +21,9 @@ import jakarta.validation.constraints.Pattern;
                    // class.
 @AllArgsConstructor // Generates a constructor with 1 parameter for each field in your class.
 @Entity
+// Cache de second niveau : lu à chaque requête authentifiée, rarement modifié (entrée évincée à chaque mise à jour)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Table(name = "USERS", uniqueConstraints = {
         @UniqueConstraint(columnNames = "email"), // email unique
         @UniqueConstraint(columnNames = "username") // nom est unique
@@ -26,7 +31,10 @@ import jakarta.validation.constraints.Pattern;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_ids")
+    @TableGenerator(name = "user_ids", table = IdGenerators.TABLE, pkColumnName = IdGenerators.SEGMENT_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "users",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @NonNull
@@ -46,8 +54,15 @@ public class User {
     @Column(nullable = false)
     private String role;
 
+    // Incrémentée à chaque abonnement ou désabonnement (recopiée dans le JWT)
+    @Column(name = "subscription_version", nullable = false)
+    private long subscriptionVersion;
+
     @ManyToMany
-    @JoinTable(name = "subscription", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "theme_id"))
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+    // Lecture seule en pratique : les abonnements sont modifiés directement dans la table (voir UserRespository)
+    @JoinTable(name = "subscription", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "theme_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_subscription_user_theme", columnNames = { "user_id", "theme_id" }))
     private List<Theme> subscribedThemes = new ArrayList<>();
 
     public List<Long> getSubscribedThemeIds() {
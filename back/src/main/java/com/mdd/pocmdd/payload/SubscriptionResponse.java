@@ -0,0 +1,20 @@
+package com.mdd.pocmdd.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Réponse d'une modification d'abonnements : nombre d'abonnements ajoutés ou
+ * retirés (0 si la demande ne changeait rien) et, si les abonnements ont
+ * changé, un nouveau token portant les thèmes suivis et leur version.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionResponse {
+
+    private int changed;
+    private String token;
+
+}
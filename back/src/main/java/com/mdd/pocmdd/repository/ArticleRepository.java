@@ -1,12 +1,77 @@
 package com.mdd.pocmdd.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.mdd.pocmdd.dto.ArticleVersion;
+import com.mdd.pocmdd.dto.SearchDocument;
+import com.mdd.pocmdd.dto.TimelineEntry;
 import com.mdd.pocmdd.models.Article;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Long> {
     List<Article> findByThemeId(Long themeId);
 
+    // Articles avec leur auteur et leur thème, chargés en une seule requête
+    @EntityGraph(attributePaths = { "user", "theme" })
+    List<Article> findWithAuthorAndThemeByIdIn(Collection<Long> ids);
+
+    // Article avec son auteur et son thème, chargé en une seule requête
+    @EntityGraph(attributePaths = { "user", "theme" })
+    Optional<Article> findWithAuthorAndThemeById(Long id);
+
+    // Première page du fil : références des articles des thèmes donnés, du plus récent au plus ancien
+    @Query("select new com.mdd.pocmdd.dto.TimelineEntry(a.id, a.createdAt, a.theme.id) from Article a"
+            + " where a.theme.id in :themeIds order by a.createdAt desc, a.id desc")
+    List<TimelineEntry> findTimelineEntries(@Param("themeIds") Collection<Long> themeIds, Pageable pageable);
+
+    // Pages suivantes : références strictement plus anciennes que la position (createdAt, id) du curseur
+    @Query("select new com.mdd.pocmdd.dto.TimelineEntry(a.id, a.createdAt, a.theme.id) from Article a"
+            + " where a.theme.id in :themeIds"
+            + " and (a.createdAt < :createdAt or (a.createdAt = :createdAt and a.id < :id))"
+            + " order by a.createdAt desc, a.id desc")
+    List<TimelineEntry> findTimelineEntriesAfter(@Param("themeIds") Collection<Long> themeIds,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // Version de l'article (date de modification et nombre de commentaires), lue sur la seule ligne de l'article.
+    // Pas le plus grand ID de commentaire : alloués par blocs, les IDs ne croissent pas d'une instance à l'autre
+    @Query("select new com.mdd.pocmdd.dto.ArticleVersion(a.id, coalesce(a.updatedAt, a.createdAt), a.commentCount)"
+            + " from Article a where a.id = :id")
+    Optional<ArticleVersion> findVersionById(@Param("id") Long id);
+
+    // Nombre de commentaires de l'article, lu par sa clé primaire
+    @Query("select a.commentCount from Article a where a.id = :id")
+    Optional<Long> findCommentCountById(@Param("id") Long id);
+
+    // Ajoute des commentaires au compteur de l'article par une mise à jour atomique en base ; la date de
+    // modification est réaffectée telle quelle pour que MySQL (ON UPDATE CURRENT_TIMESTAMP) ne la change pas
+    @Modifying
+    @Query("update Article a set a.commentCount = a.commentCount + :count, a.updatedAt = a.updatedAt"
+            + " where a.id = :id")
+    int incrementCommentCount(@Param("id") Long id, @Param("count") long count);
+
+    // Lecture en flux du fil complet (curseur JDBC en avant seulement, entités en lecture seule)
+    @EntityGraph(attributePaths = { "user", "theme" })
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("select a from Article a where a.theme.id in :themeIds order by a.createdAt desc, a.id desc")
+    Stream<Article> streamByThemeIdIn(@Param("themeIds") Collection<Long> themeIds);
+
+    // Lecture en flux du texte de tous les articles, pour construire l'index de recherche
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.mdd.pocmdd.dto.SearchDocument(a.id, a.theme.id, a.title, a.content) from Article a")
+    Stream<SearchDocument> streamSearchDocuments();
+
 }
@@ -1,13 +1,31 @@
 package com.mdd.pocmdd.repository;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.mdd.pocmdd.models.Comment;
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByArticleId(Long articleId);
-}
 
+    // Page de commentaires d'un article postérieurs à un ID, avec leur auteur, en une seule requête.
+    // Les IDs ne croissent qu'au sein d'une instance (blocs alloués par IdGenerators)
+    @EntityGraph(attributePaths = "user")
+    List<Comment> findByArticleIdAndIdGreaterThanOrderByIdAsc(Long articleId, Long afterId, Pageable pageable);
+
+    // Lecture en flux des commentaires d'un article (curseur JDBC en avant seulement, entités en lecture seule)
+    @EntityGraph(attributePaths = "user")
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("select c from Comment c where c.article.id = :articleId order by c.id")
+    Stream<Comment> streamByArticleId(@Param("articleId") Long articleId);
+}
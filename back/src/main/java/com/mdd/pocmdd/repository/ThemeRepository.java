@@ -1,9 +1,19 @@
 package com.mdd.pocmdd.repository;
 
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import com.mdd.pocmdd.models.Theme;
 
+import jakarta.persistence.QueryHint;
+
 
 public interface ThemeRepository extends JpaRepository<Theme, Long> {
 
+    // Catalogue complet mis en cache de requêtes ; invalidé par toute écriture dans la table themes
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Theme> findAll();
 }
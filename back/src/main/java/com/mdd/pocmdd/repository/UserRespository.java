@@ -1,8 +1,21 @@
 package com.mdd.pocmdd.repository;
 
 import com.mdd.pocmdd.models.User;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface UserRespository extends JpaRepository<User, Long> {
@@ -12,4 +25,50 @@ public interface UserRespository extends JpaRepository<User, Long> {
     User findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // Utilisateurs dont l'email ou le nom correspond à l'identifiant de connexion, en une seule requête
+    List<User> findByEmailOrUsername(String email, String username);
+
+    // IDs des thèmes suivis, sans charger l'utilisateur ni les thèmes
+    @Query("select t.id from User u join u.subscribedThemes t where u.id = :id")
+    List<Long> findSubscribedThemeIdsById(@Param("id") Long id);
+
+    // Nom d'utilisateur seul, pour valider l'auteur d'un commentaire sans charger l'utilisateur
+    @Query("select u.username from User u where u.id = :id")
+    Optional<String> findUsernameById(@Param("id") Long id);
+
+    // Version courante des abonnements de l'utilisateur
+    @Query("select u.subscriptionVersion from User u where u.id = :id")
+    Optional<Long> findSubscriptionVersionById(@Param("id") Long id);
+
+    // Remplace le hash du mot de passe sans recharger l'utilisateur
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    // Abonnements manquants insérés en une requête ; les thèmes déjà suivis ou inexistants sont ignorés.
+    // Seul le cache de second niveau des abonnements (table subscription) est invalidé.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "subscription"))
+    @Query(nativeQuery = true, value = "insert into subscription (user_id, theme_id)"
+            + " select :userId, t.id from themes t where t.id in (:themeIds)"
+            + " and not exists (select 1 from subscription s where s.user_id = :userId and s.theme_id = t.id)")
+    int insertSubscriptions(@Param("userId") Long userId, @Param("themeIds") Collection<Long> themeIds);
+
+    // Abonnements retirés en une requête ; les thèmes non suivis sont ignorés
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "subscription"))
+    @Query(nativeQuery = true, value = "delete from subscription where user_id = :userId and theme_id in (:themeIds)")
+    int deleteSubscriptions(@Param("userId") Long userId, @Param("themeIds") Collection<Long> themeIds);
+
+    // Utilisateur verrouillé jusqu'à la fin de la transaction (select ... for update), pour incrémenter
+    // la version des abonnements ; contrairement à un update en masse, seule son entrée du cache est évincée
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findForUpdateById(@Param("id") Long id);
+
+    // Utilisateur avec ses thèmes abonnés, chargés en une seule requête
+    @EntityGraph(attributePaths = "subscribedThemes")
+    Optional<User> findWithSubscribedThemesById(Long id);
 }
@@ -0,0 +1,406 @@
+package com.mdd.pocmdd.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mdd.pocmdd.dto.ArticleImportRecord;
+import com.mdd.pocmdd.dto.ArticleImportResult;
+import com.mdd.pocmdd.dto.SearchDocument;
+import com.mdd.pocmdd.dto.ThemeDTO;
+import com.mdd.pocmdd.dto.TimelineEntry;
+import com.mdd.pocmdd.models.Article;
+import com.mdd.pocmdd.models.Theme;
+import com.mdd.pocmdd.models.User;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Service d'import en masse des articles depuis un flux NDJSON (un article JSON
+ * par ligne). Le flux est lu ligne à ligne : seules les lignes du lot en cours
+ * sont gardées en mémoire. Les thèmes sont résolus dans le catalogue en mémoire
+ * et les auteurs une seule fois par import ; les articles valides sont insérés
+ * par lots, chaque lot dans sa propre transaction (un lot en échec n'annule pas
+ * les précédents, et ses articles sont alors réenregistrés un par un pour
+ * n'écarter que ceux que la base refuse). Le résultat de chaque ligne est transmis, dans l'ordre,
+ * dès que son lot est traité. Les articles sont toujours attribués à
+ * l'utilisateur courant, et une ligne trop longue est rejetée sans être gardée
+ * en mémoire.
+ */
+@Log4j2
+@Service
+public class ArticleImportService {
+
+    private static final int MAX_TITLE_LENGTH = 255;
+
+    /**
+     * Taille maximale du contenu, en octets UTF-8 : celle d'une colonne TEXT
+     * de MySQL (articles.content).
+     */
+    private static final int MAX_CONTENT_BYTES = 65535;
+
+    private final ObjectMapper objectMapper;
+    private final ThemeService themeService;
+    private final UserService userService;
+    private final TimelineService timelineService;
+    private final ArticleSearchService articleSearchService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Nombre de lignes traitées par transaction.
+     */
+    private final int chunkSize;
+
+    /**
+     * Longueur maximale d'une ligne, en caractères.
+     */
+    private final int maxLineLength;
+
+    /**
+     * Constructeur pour injecter les dépendances et la configuration du service.
+     *
+     * @param objectMapper         le lecteur JSON des lignes importées.
+     * @param themeService         le service des thèmes (catalogue en mémoire).
+     * @param userService          le service des utilisateurs.
+     * @param timelineService      le service des fils d'actualité.
+     * @param articleSearchService le service de recherche plein texte.
+     * @param entityManager        l'EntityManager, vidé après chaque lot.
+     * @param transactionManager   le gestionnaire des transactions de chaque lot.
+     * @param chunkSize            le nombre de lignes par transaction.
+     * @param maxLineLength        la longueur maximale d'une ligne.
+     */
+    public ArticleImportService(ObjectMapper objectMapper, ThemeService themeService, UserService userService,
+            TimelineService timelineService, ArticleSearchService articleSearchService, EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${mdd.import.chunk-size:500}") int chunkSize,
+            @Value("${mdd.import.max-line-length:1000000}") int maxLineLength) {
+        this.objectMapper = objectMapper;
+        this.themeService = themeService;
+        this.userService = userService;
+        this.timelineService = timelineService;
+        this.articleSearchService = articleSearchService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Importe les articles d'un flux NDJSON.
+     *
+     * @param input    le flux NDJSON, lu jusqu'à sa fin.
+     * @param userId   l'ID de l'utilisateur courant, auteur des articles.
+     * @param consumer le consommateur recevant le résultat de chaque ligne non
+     *                 vide, dans l'ordre du flux.
+     * @throws IOException si le flux ne peut pas être lu.
+     */
+    public void importArticles(InputStream input, Long userId, Consumer<ArticleImportResult> consumer)
+            throws IOException {
+        Lookup lookup = new Lookup(userId);
+        Chunk chunk = new Chunk(consumer);
+        LineReader reader = new LineReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxLineLength);
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (reader.truncated) {
+                chunk.reject(line, "Ligne trop longue (" + maxLineLength + " caractères au plus)");
+                continue;
+            }
+            if (text.isBlank()) {
+                continue;
+            }
+            ArticleImportRecord record;
+            try {
+                record = objectMapper.readValue(text, ArticleImportRecord.class);
+            } catch (JsonProcessingException e) {
+                chunk.reject(line, "JSON invalide : " + e.getOriginalMessage());
+                continue;
+            }
+            String error = validate(record);
+            Long themeId = error == null ? lookup.themeId(record) : null;
+            Long authorId = themeId == null ? null : lookup.authorId(record.getAuthor());
+            if (error != null) {
+                chunk.reject(line, error);
+            } else if (themeId == null) {
+                chunk.reject(line, "Thème inconnu");
+            } else if (authorId == null) {
+                chunk.reject(line, "Auteur refusé : " + record.getAuthor()
+                        + " (les articles sont attribués à l'utilisateur connecté)");
+            } else {
+                chunk.add(line, record, themeId, authorId);
+            }
+        }
+        chunk.flush();
+        log.info("Import terminé : {} lignes lues", line);
+    }
+
+    private static String validate(ArticleImportRecord record) {
+        if (record.getTitle() == null || record.getTitle().isBlank()) {
+            return "Titre manquant";
+        }
+        if (record.getTitle().length() > MAX_TITLE_LENGTH) {
+            return "Titre trop long (" + MAX_TITLE_LENGTH + " caractères au plus)";
+        }
+        if (record.getContent() == null || record.getContent().isBlank()) {
+            return "Contenu manquant";
+        }
+        if (utf8Length(record.getContent()) > MAX_CONTENT_BYTES) {
+            return "Contenu trop long (" + MAX_CONTENT_BYTES + " octets au plus)";
+        }
+        if (record.getThemeId() == null && (record.getThemeTitle() == null || record.getThemeTitle().isBlank())) {
+            return "Thème manquant";
+        }
+        return null;
+    }
+
+    /**
+     * @return la taille du texte encodé en UTF-8, sans l'encoder.
+     */
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Résolution des thèmes et des auteurs d'un import : le catalogue des thèmes
+     * est lu une fois, et chaque auteur n'est cherché en base qu'une fois.
+     */
+    private final class Lookup {
+
+        private final Long currentUserId;
+        private final Map<Long, ThemeDTO> themesById;
+        private final Map<String, Long> themeIdsByTitle = new HashMap<>();
+        private final Map<String, Optional<Long>> authorIds = new HashMap<>();
+
+        private Lookup(Long currentUserId) {
+            this.currentUserId = currentUserId;
+            this.themesById = themeService.getCatalog().getThemesById();
+            for (ThemeDTO theme : themesById.values()) {
+                themeIdsByTitle.putIfAbsent(theme.getTitle().toLowerCase(Locale.ROOT), theme.getId());
+            }
+        }
+
+        private Long themeId(ArticleImportRecord record) {
+            if (record.getThemeId() != null) {
+                return themesById.containsKey(record.getThemeId()) ? record.getThemeId() : null;
+            }
+            return themeIdsByTitle.get(record.getThemeTitle().trim().toLowerCase(Locale.ROOT));
+        }
+
+        /**
+         * @return l'utilisateur courant si l'auteur est absent ou le désigne,
+         *         null sinon : on ne publie pas au nom d'un autre utilisateur.
+         */
+        private Long authorId(String author) {
+            if (author == null || author.isBlank()) {
+                return currentUserId;
+            }
+            Optional<Long> authorId = authorIds.computeIfAbsent(author.trim(),
+                    login -> Optional.ofNullable(userService.findByLogin(login)).map(User::getId));
+            return authorId.filter(id -> Objects.equals(id, currentUserId)).orElse(null);
+        }
+    }
+
+    /**
+     * Lignes en attente : les résultats sont transmis dans l'ordre du flux une
+     * fois les articles valides du lot enregistrés.
+     */
+    private final class Chunk {
+
+        private final Consumer<ArticleImportResult> consumer;
+        private final List<ArticleImportResult> results = new ArrayList<>();
+        private final List<Pending> pending = new ArrayList<>();
+
+        private Chunk(Consumer<ArticleImportResult> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void reject(int line, String error) {
+            results.add(new ArticleImportResult(line, ArticleImportResult.REJECTED, null, error));
+            flushIfFull();
+        }
+
+        private void add(int line, ArticleImportRecord record, Long themeId, Long authorId) {
+            ArticleImportResult result = new ArticleImportResult(line, ArticleImportResult.CREATED, null, null);
+            results.add(result);
+            pending.add(new Pending(record, themeId, authorId, result));
+            flushIfFull();
+        }
+
+        private void flushIfFull() {
+            if (results.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) {
+                save();
+            }
+            results.forEach(consumer);
+            results.clear();
+            pending.clear();
+        }
+
+        /**
+         * Insère les articles valides du lot en une transaction, puis les diffuse
+         * dans les fils et l'index de recherche. Si la base refuse le lot, chaque
+         * article est réessayé dans sa propre transaction : seuls ceux qui
+         * échouent encore sont marqués en échec.
+         */
+        private void save() {
+            LocalDateTime now = LocalDateTime.now();
+            List<Article> articles;
+            try {
+                articles = insert(pending, now);
+            } catch (RuntimeException e) {
+                log.warn("Échec de l'enregistrement d'un lot de {} articles, reprise un par un : {}", pending.size(),
+                        e.getMessage());
+                for (Pending p : pending) {
+                    List<Pending> row = List.of(p);
+                    List<Article> inserted;
+                    try {
+                        inserted = insert(row, now);
+                    } catch (RuntimeException single) {
+                        p.result.setStatus(ArticleImportResult.FAILED);
+                        p.result.setError("Article non enregistré : " + single.getMessage());
+                        continue;
+                    }
+                    publish(row, inserted);
+                }
+                return;
+            }
+            publish(pending, articles);
+        }
+
+        /**
+         * Insère des articles en une transaction.
+         *
+         * @return les articles insérés, dans l'ordre des lignes.
+         */
+        private List<Article> insert(List<Pending> rows, LocalDateTime now) {
+            List<Article> articles = new ArrayList<>(rows.size());
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Pending p : rows) {
+                    Article article = new Article();
+                    article.setTitle(p.record.getTitle());
+                    article.setContent(p.record.getContent());
+                    article.setCreatedAt(p.record.getCreatedAt() == null ? now : p.record.getCreatedAt());
+                    // Références sans lecture : l'existence a été vérifiée à la résolution
+                    article.setUser(entityManager.getReference(User.class, p.authorId));
+                    article.setTheme(entityManager.getReference(Theme.class, p.themeId));
+                    entityManager.persist(article);
+                    articles.add(article);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            return articles;
+        }
+
+        /**
+         * Renseigne les résultats des articles insérés et les diffuse dans les
+         * fils et l'index de recherche.
+         */
+        private void publish(List<Pending> rows, List<Article> articles) {
+            for (int i = 0; i < articles.size(); i++) {
+                Article article = articles.get(i);
+                Pending p = rows.get(i);
+                p.result.setArticleId(article.getId());
+                timelineService.publish(new TimelineEntry(article.getId(), article.getCreatedAt(), p.themeId));
+                articleSearchService.index(
+                        new SearchDocument(article.getId(), p.themeId, article.getTitle(), article.getContent()));
+            }
+        }
+    }
+
+    /**
+     * Lecture ligne à ligne dont la longueur des lignes est bornée : au-delà de
+     * la limite, la suite de la ligne est lue et ignorée.
+     */
+    private static final class LineReader {
+
+        private final BufferedReader reader;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+
+        /**
+         * Vrai si la dernière ligne lue dépassait la longueur maximale.
+         */
+        private boolean truncated;
+
+        private LineReader(Reader reader, int maxLength) {
+            this.reader = new BufferedReader(reader);
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return la ligne suivante (sans fin de ligne, tronquée si elle est trop
+         *         longue), ou null à la fin du flux.
+         */
+        private String readLine() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            int c;
+            boolean read = false;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                if (c == '\n') {
+                    break;
+                }
+                if (line.length() < maxLength) {
+                    line.append((char) c);
+                } else {
+                    truncated = true;
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(length - 1);
+            }
+            return line.toString();
+        }
+    }
+
+    private record Pending(ArticleImportRecord record, Long themeId, Long authorId, ArticleImportResult result) {
+    }
+}
@@ -0,0 +1,243 @@
+package com.mdd.pocmdd.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mdd.pocmdd.dto.SearchDocument;
+import com.mdd.pocmdd.repository.ArticleRepository;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Service de recherche plein texte sur les articles.
+ * Le titre et le contenu des articles sont découpés en termes (minuscules, sans
+ * accents) et rangés dans un index inversé en mémoire : pour chaque terme, les
+ * articles qui le contiennent et le nombre d'occurrences. Les résultats sont
+ * classés par pertinence (BM25), un terme du titre comptant plus qu'un terme du
+ * contenu. La recherche ne lit donc jamais la colonne TEXT des articles.
+ * L'index est reconstruit au démarrage et complété à chaque création d'article.
+ */
+@Log4j2
+@Service
+public class ArticleSearchService {
+
+    /**
+     * Poids d'une occurrence dans le titre par rapport au contenu.
+     */
+    private static final int TITLE_WEIGHT = 3;
+
+    /**
+     * Paramètres BM25 : saturation de la fréquence et normalisation par longueur.
+     */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * Nombre d'articles lus en base avant d'être indexés en parallèle.
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Mots trop fréquents pour être discriminants.
+     */
+    private static final Set<String> STOP_WORDS = Set.of("le", "la", "les", "un", "une", "des", "de", "du", "et",
+            "ou", "en", "au", "aux", "a", "the", "of", "and", "to", "in", "is", "on", "for", "pour", "par", "sur",
+            "dans", "est", "que", "qui", "avec");
+
+    private final ArticleRepository articleRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Index courant, servi aux recherches.
+     */
+    private final AtomicReference<Index> index = new AtomicReference<>(new Index());
+
+    /**
+     * Index en cours de reconstruction (null sinon) : les articles créés pendant
+     * la reconstruction y sont aussi ajoutés.
+     */
+    private volatile Index building;
+
+    /**
+     * Constructeur pour injecter les dépendances nécessaires.
+     *
+     * @param articleRepository  le référentiel des articles.
+     * @param transactionManager le gestionnaire de transactions, pour la lecture
+     *                           en flux lors de la reconstruction.
+     */
+    public ArticleSearchService(ArticleRepository articleRepository, PlatformTransactionManager transactionManager) {
+        this.articleRepository = articleRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Nommée comme une transaction de service : la reconstruction lit le réplica
+        this.readOnlyTransaction.setName(ArticleSearchService.class.getName() + ".rebuild");
+    }
+
+    /**
+     * Construit l'index au démarrage. Les recherches faites pendant la
+     * construction sont servies par l'index précédent.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruit l'index depuis la base. Les articles sont lus en flux par lots,
+     * et chaque lot est découpé en termes en parallèle.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        Index rebuilt = new Index();
+        building = rebuilt;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<SearchDocument> documents = articleRepository.streamSearchDocuments()) {
+                    List<SearchDocument> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+                    documents.forEach(document -> {
+                        batch.add(document);
+                        if (batch.size() == REBUILD_BATCH_SIZE) {
+                            batch.parallelStream().forEach(rebuilt::add);
+                            batch.clear();
+                        }
+                    });
+                    batch.parallelStream().forEach(rebuilt::add);
+                }
+            });
+            index.set(rebuilt);
+        } finally {
+            building = null;
+        }
+        log.info("Index de recherche reconstruit : {} articles, {} termes en {} ms", rebuilt.documents.size(),
+                rebuilt.postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Ajoute un article à l'index.
+     *
+     * @param document le texte de l'article.
+     */
+    public void index(SearchDocument document) {
+        index.get().add(document);
+        Index rebuilding = building;
+        if (rebuilding != null) {
+            rebuilding.add(document);
+        }
+    }
+
+    /**
+     * Recherche les articles les plus pertinents pour une requête.
+     *
+     * @param query   le texte recherché.
+     * @param themeId l'ID du thème auquel restreindre la recherche, ou null.
+     * @param limit   le nombre maximal de résultats.
+     * @return les IDs des articles trouvés, du plus pertinent au moins pertinent.
+     */
+    public List<Long> search(String query, Long themeId, int limit) {
+        Index current = index.get();
+        List<String> terms = tokenize(query).distinct().toList();
+        int documentCount = current.documents.size();
+        if (terms.isEmpty() || documentCount == 0) {
+            return List.of();
+        }
+        double averageLength = (double) current.totalLength.get() / documentCount;
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            Map<Long, Integer> postings = current.postings.get(term);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - postings.size() + 0.5) / (postings.size() + 0.5));
+            postings.forEach((articleId, frequency) -> {
+                Document document = current.documents.get(articleId);
+                if (document == null || (themeId != null && !themeId.equals(document.themeId))) {
+                    return;
+                }
+                double norm = K1 * (1 - B + B * document.length / averageLength);
+                scores.merge(articleId, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+            });
+        }
+
+        // Garde les meilleurs scores (ID le plus récent en cas d'égalité)
+        Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(ranking);
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            best.add(score);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Long> articleIds = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            articleIds.add(0, best.poll().getKey());
+        }
+        return articleIds;
+    }
+
+    /**
+     * Découpe un texte en termes : minuscules, sans accents ni ponctuation, sans
+     * mots vides.
+     */
+    private static Stream<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD))
+                .replaceAll("");
+        return NON_WORD.splitAsStream(normalized)
+                .filter(term -> term.length() > 1 && !STOP_WORDS.contains(term));
+    }
+
+    /**
+     * Index inversé : termes vers fréquences par article, et longueur de chaque
+     * article.
+     */
+    private static final class Index {
+
+        private final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+        private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+        private final AtomicLong totalLength = new AtomicLong();
+
+        private void add(SearchDocument searchDocument) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            tokenize(searchDocument.getTitle()).forEach(term -> frequencies.merge(term, TITLE_WEIGHT, Integer::sum));
+            tokenize(searchDocument.getContent()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+            // Les articles ne sont pas modifiés : un article déjà indexé est ignoré
+            if (documents.putIfAbsent(searchDocument.getArticleId(),
+                    new Document(searchDocument.getThemeId(), length)) != null) {
+                return;
+            }
+            frequencies.forEach((term, frequency) -> postings
+                    .computeIfAbsent(term, key -> new ConcurrentHashMap<>())
+                    .put(searchDocument.getArticleId(), frequency));
+            totalLength.addAndGet(length);
+        }
+    }
+
+    private record Document(Long themeId, int length) {
+    }
+}
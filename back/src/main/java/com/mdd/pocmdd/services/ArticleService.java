@@ -1,19 +1,33 @@
 package com.mdd.pocmdd.services;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.mdd.pocmdd.repository.ArticleRepository;
 import com.mdd.pocmdd.repository.UserRespository;
 import com.mdd.pocmdd.dto.ArticleDTO;
-import com.mdd.pocmdd.dto.CommentDTO;
+import com.mdd.pocmdd.dto.CommentPageDTO;
+import com.mdd.pocmdd.dto.FeedPageDTO;
+import com.mdd.pocmdd.dto.SearchDocument;
+import com.mdd.pocmdd.dto.TimelineEntry;
 import com.mdd.pocmdd.models.Article;
 import com.mdd.pocmdd.mapper.ArticleMapper;
 import com.mdd.pocmdd.repository.ThemeRepository;
 import com.mdd.pocmdd.models.User;
 import com.mdd.pocmdd.models.Theme;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import lombok.extern.log4j.Log4j2;
 
 @Log4j2
@@ -21,72 +35,243 @@ import lombok.extern.log4j.Log4j2;
 public class ArticleService {
 
     private ArticleRepository articleRepository;
+    private CommentService commentService;
     private ArticleMapper articleMapper;
     private UserRespository userRepository;
     private ThemeRepository themeRepository;
+    private TimelineService timelineService;
+    private ArticleSearchService articleSearchService;
+    private ArticleStreamService articleStreamService;
+    private EntityManager entityManager;
+    private DistributionSummary feedSize;
 
     /**
      * Constructeur permettant d'injecter les dépendances nécessaires au service.
      * 
-     * @param articleRepository Le repository pour les articles.
-     * @param articleMapper     Le mapper pour convertir les entités Article en
-     *                          ArticleDTO.
-     * @param userRepository    Le repository pour les utilisateurs.
-     * @param themeRepository   Le repository pour les thèmes.
+     * @param articleRepository    Le repository pour les articles.
+     * @param commentService       Le service des commentaires.
+     * @param articleMapper        Le mapper pour convertir les entités Article en
+     *                             ArticleDTO.
+     * @param userRepository       Le repository pour les utilisateurs.
+     * @param themeRepository      Le repository pour les thèmes.
+     * @param timelineService      Le service des fils d'actualité matérialisés.
+     * @param articleSearchService Le service de recherche plein texte.
+     * @param articleStreamService Le service de diffusion des nouveaux articles
+     *                             par Server-Sent Events.
+     * @param entityManager        L'EntityManager, vidé régulièrement lors des
+     *                             lectures en flux.
+     * @param meterRegistry        Le registre des métriques du fil.
      */
-    public ArticleService(ArticleRepository articleRepository, ArticleMapper articleMapper,
-            UserRespository userRepository, ThemeRepository themeRepository) {
+    public ArticleService(ArticleRepository articleRepository, CommentService commentService,
+            ArticleMapper articleMapper,
+            UserRespository userRepository, ThemeRepository themeRepository, TimelineService timelineService,
+            ArticleSearchService articleSearchService, ArticleStreamService articleStreamService,
+            EntityManager entityManager, MeterRegistry meterRegistry) {
         this.articleMapper = articleMapper;
         this.articleRepository = articleRepository;
+        this.commentService = commentService;
         this.userRepository = userRepository;
         this.themeRepository = themeRepository;
+        this.timelineService = timelineService;
+        this.articleSearchService = articleSearchService;
+        this.articleStreamService = articleStreamService;
+        this.entityManager = entityManager;
+        this.feedSize = DistributionSummary.builder("mdd.feed.size").baseUnit("articles")
+                .description("Nombre d'articles renvoyés par page du fil d'actualité")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
     }
 
     /**
-     * Méthode pour récupérer tous les articles associés à un ou plusieurs thèmes.
+     * Taille de page maximale acceptée pour le fil d'actualité.
+     */
+    public static final int MAX_FEED_PAGE_SIZE = 100;
+
+    /**
+     * Nombre d'articles lus en flux entre deux vidages du contexte de persistance.
+     */
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+
+    /**
+     * Nombre de commentaires embarqués dans le détail d'un article.
+     */
+    public static final int DETAIL_COMMENT_COUNT = 20;
+
+    /**
+     * Nombre maximal de résultats d'une recherche.
+     */
+    public static final int MAX_SEARCH_RESULTS = 100;
+
+    /**
+     * Méthode pour récupérer une page du fil d'actualité d'un utilisateur.
+     * Les références des articles sont lues dans le fil matérialisé de
+     * l'utilisateur (voir {@link TimelineService}), triées du plus récent au plus
+     * ancien (date de création puis ID), puis les articles de la page sont chargés
+     * en une seule requête. Le coût d'une page ne dépend donc pas de la taille de
+     * l'historique.
      * 
-     * @param themeids Liste des IDs des thèmes.
-     * @return Une liste d'objets ArticleDTO représentant les articles associés aux
-     *         thèmes.
+     * @param userId   L'ID de l'utilisateur dont on lit le fil.
+     * @param themeids Liste des IDs des thèmes auxquels il est abonné.
+     * @param cursor   Curseur opaque renvoyé par la page précédente, ou null pour
+     *                 la première page.
+     * @param size     Nombre d'articles souhaités dans la page.
+     * @return Une page d'ArticleDTO et le curseur de la page suivante.
      */
-    public List<ArticleDTO> findallArticleByTheme(List<Long> themeids) {
+    @Transactional(readOnly = true)
+    public FeedPageDTO findallArticleByTheme(Long userId, List<Long> themeids, String cursor, int size) {
+        if (themeids == null || themeids.isEmpty()) {
+            feedSize.record(0);
+            return new FeedPageDTO(new ArrayList<>(), null);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        FeedCursor position = (cursor == null || cursor.isEmpty()) ? null : FeedCursor.decode(cursor);
 
-        // Liste pour stocker les ArticleDTO
+        // On demande une entrée de plus que la taille de page pour savoir s'il existe
+        // une page suivante
+        List<TimelineEntry> entries = timelineService.readPage(userId, themeids, position, pageSize + 1);
+        boolean hasNext = entries.size() > pageSize;
+        if (hasNext) {
+            entries = entries.subList(0, pageSize);
+        }
+
+        // Chargement des articles de la page, avec auteur et thème, en une seule requête
+        List<Long> ids = entries.stream().map(TimelineEntry::getArticleId).collect(Collectors.toList());
+        Map<Long, Article> articlesById = articleRepository.findWithAuthorAndThemeByIdIn(ids).stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+
+        // Liste pour stocker les ArticleDTO, dans l'ordre du fil
         List<ArticleDTO> articleDTOs = new ArrayList<>();
+        for (TimelineEntry entry : entries) {
+            Article article = articlesById.get(entry.getArticleId());
+            if (article == null) {
+                continue;
+            }
+            // Vérification que l'article possède bien un auteur et un thème
+            if (article.getUser() == null || article.getTheme() == null) {
+                throw new IllegalArgumentException("Author or theme not found");
+            }
+            // Création d'un nouvel ArticleDTO
+            ArticleDTO articleDTO = articleMapper.toDto(article);
+            articleDTO.setAuthorName(article.getUser().getUsername()); // Définir le nom de l'auteur
+            articleDTO.setThemeTitle(article.getTheme().getTitle()); // Définir le titre du thème
 
-        // Parcours de chaque thème pour récupérer les articles associés
-        for (Long themeId : themeids) {
-            // Récupération des articles associés au thème
-            List<Article> articles = articleRepository.findByThemeId(themeId);
+            // Ajouter l'ArticleDTO à la liste
+            articleDTOs.add(articleDTO);
+        }
 
-            // Parcours de chaque article
-            for (Article article : articles) {
-                // Vérification que l'article possède bien un auteur et un thème
-                if (article.getUser() == null || article.getTheme() == null) {
-                    throw new IllegalArgumentException("Author or theme not found");
-                }
-                // Création d'un nouvel ArticleDTO
-                ArticleDTO articleDTO = articleMapper.toDto(article);
-                articleDTO.setAuthorName(article.getUser().getUsername()); // Définir le nom de l'auteur
-                articleDTO.setThemeTitle(article.getTheme().getTitle()); // Définir le titre du thème
+        String nextCursor = null;
+        if (hasNext) {
+            TimelineEntry last = entries.get(entries.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getArticleId()).encode();
+        }
+        feedSize.record(articleDTOs.size());
+        return new FeedPageDTO(articleDTOs, nextCursor);
+    }
 
-                // Ajouter l'ArticleDTO à la liste
-                articleDTOs.add(articleDTO);
-            }
+    /**
+     * Méthode pour calculer la version du fil d'un utilisateur sans charger
+     * d'article : elle dépend des thèmes suivis et de l'article le plus récent du
+     * fil, et change donc dès qu'un article y est publié.
+     * 
+     * @param userId   L'ID de l'utilisateur dont on lit le fil.
+     * @param themeids Liste des IDs des thèmes auxquels il est abonné.
+     * @return Une chaîne identifiant l'état courant du fil.
+     */
+    public String getFeedVersion(Long userId, List<Long> themeids) {
+        if (themeids == null || themeids.isEmpty()) {
+            return "0-0";
         }
+        List<TimelineEntry> head = timelineService.readPage(userId, themeids, null, 1);
+        Long newestId = head.isEmpty() ? 0L : head.get(0).getArticleId();
+        List<Long> sortedThemeIds = themeids.stream().sorted().collect(Collectors.toList());
+        return Integer.toHexString(sortedThemeIds.hashCode()) + "-" + newestId;
+    }
+
+    /**
+     * Méthode pour calculer la version d'un article sans le charger : elle change
+     * lorsque l'article est modifié ou qu'un commentaire y est ajouté (le nombre
+     * de commentaires tenu sur l'article augmente).
+     * 
+     * Lue en lecture seule, comme le détail de l'article : l'ETag et le corps de
+     * la réponse proviennent de la même base.
+     * 
+     * @param id L'ID de l'article.
+     * @return La version de l'article, ou vide si l'article n'existe pas.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> getArticleVersion(Long id) {
+        return articleRepository.findVersionById(id)
+                .map(version -> (version.getModifiedAt() == null ? 0
+                        : version.getModifiedAt().toInstant(ZoneOffset.UTC).toEpochMilli()) + "-"
+                        + version.getCommentCount());
+    }
 
+    /**
+     * Méthode pour rechercher des articles par leur titre et leur contenu. Les IDs
+     * des articles sont lus dans l'index de recherche, classés par pertinence,
+     * puis les articles trouvés sont chargés en une seule requête.
+     * 
+     * @param query   Le texte recherché.
+     * @param themeId L'ID du thème auquel restreindre la recherche, ou null.
+     * @param limit   Le nombre maximal de résultats.
+     * @return Les ArticleDTO trouvés, du plus pertinent au moins pertinent.
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleDTO> searchArticles(String query, Long themeId, int limit) {
+        int resultCount = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        List<Long> articleIds = articleSearchService.search(query, themeId, resultCount);
+        if (articleIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Article> articlesById = articleRepository.findWithAuthorAndThemeByIdIn(articleIds).stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+        List<ArticleDTO> articleDTOs = new ArrayList<>(articleIds.size());
+        for (Long articleId : articleIds) {
+            Article article = articlesById.get(articleId);
+            if (article != null) {
+                articleDTOs.add(articleMapper.toDto(article));
+            }
+        }
         return articleDTOs;
     }
 
+    /**
+     * Méthode pour parcourir en flux tous les articles associés à un ou plusieurs
+     * thèmes, du plus récent au plus ancien. Les lignes sont lues avec un curseur
+     * JDBC en avant seulement et chaque article est converti puis transmis au
+     * consommateur dès sa lecture : la mémoire utilisée ne dépend pas du nombre
+     * d'articles.
+     * 
+     * @param themeids Liste des IDs des thèmes.
+     * @param consumer Le consommateur recevant chaque ArticleDTO.
+     */
+    @Transactional(readOnly = true)
+    public void streamArticlesByTheme(List<Long> themeids, Consumer<ArticleDTO> consumer) {
+        if (themeids == null || themeids.isEmpty()) {
+            return;
+        }
+        try (Stream<Article> articles = articleRepository.streamByThemeIdIn(themeids)) {
+            int count = 0;
+            Iterator<Article> iterator = articles.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(articleMapper.toDto(iterator.next()));
+                // Détache les articles déjà écrits pour que le contexte de persistance ne grossisse pas
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
     /**
      * Méthode pour récupérer un article spécifique par son ID.
      * 
      * @param id L'ID de l'article.
      * @return Un ArticleDTO représentant l'article trouvé.
      */
+    @Transactional(readOnly = true)
     public ArticleDTO findArticleById(Long id) {
-        // Récupération de l'article depuis la base de données
-        Article article = articleRepository.findById(id)
+        // Récupération de l'article, de son auteur et de son thème en une seule requête
+        Article article = articleRepository.findWithAuthorAndThemeById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Article not found"));
 
         // Vérification que l'article possède bien un auteur et un thème
@@ -99,23 +284,12 @@ public class ArticleService {
         articleDTO.setAuthorName(article.getUser().getUsername()); // Définir le nom de l'auteur
         articleDTO.setThemeTitle(article.getTheme().getTitle()); // Définir le titre du thème
 
-        // Mapper les commentaires de l'article
-        List<CommentDTO> commentDTOs = article.getComments().stream()
-                .map(comment -> {
-                    // Créer un CommentDTO pour chaque commentaire
-                    CommentDTO commentDTO = new CommentDTO();
-                    commentDTO.setId(comment.getId()); // ID du commentaire
-                    commentDTO.setContent(comment.getContent()); // Contenu du commentaire
-                    // Si l'utilisateur est présent, définir son ID et son nom
-                    commentDTO.setUserId(comment.getUser() != null ? comment.getUser().getId() : null);
-                    commentDTO.setAuthorName(comment.getUser() != null ? comment.getUser().getUsername() : null);
-                    commentDTO.setArticleId(comment.getArticle() != null ? comment.getArticle().getId() : null);
-                    return commentDTO;
-                })
-                .collect(Collectors.toList());
-
-        // Affecter les commentaires à l'ArticleDTO
-        articleDTO.setComments(commentDTOs);
+        // Seuls les premiers commentaires sont embarqués, avec le nombre total lu avec
+        // l'article : le coût de la lecture ne dépend pas du nombre de commentaires
+        CommentPageDTO comments = commentService.getCommentsByArticleId(id, null, DETAIL_COMMENT_COUNT,
+                article.getCommentCount());
+        articleDTO.setComments(comments.getComments());
+        articleDTO.setCommentCount(comments.getTotalCount());
 
         return articleDTO;
     }
@@ -149,6 +323,13 @@ public class ArticleService {
         // Sauvegarde de l'article dans la base de données
         articleRepository.save(article);
 
+        // Diffusion de l'article dans le fil des abonnés du thème
+        timelineService.publish(new TimelineEntry(article.getId(), article.getCreatedAt(), theme.getId()));
+
+        // Ajout de l'article à l'index de recherche
+        articleSearchService.index(
+                new SearchDocument(article.getId(), theme.getId(), article.getTitle(), article.getContent()));
+
         // Création du ArticleDTO à partir de l'article sauvegardé
         ArticleDTO newArticleDTO = articleMapper.toDto(article);
 
@@ -156,6 +337,9 @@ public class ArticleService {
         newArticleDTO.setThemeTitle(theme.getTitle()); // Définir le titre du thème
         newArticleDTO.setCreatedAt(article.getCreatedAt()); // Définir la date de création
 
+        // Envoi de l'article aux abonnés du thème connectés au flux
+        articleStreamService.publish(newArticleDTO);
+
         return newArticleDTO;
     }
 
@@ -0,0 +1,563 @@
+package com.mdd.pocmdd.services;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mdd.pocmdd.dto.ArticleDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Diffusion des nouveaux articles par Server-Sent Events
+ * (/api/articles/stream). Chaque connexion est inscrite dans un registre en
+ * mémoire, indexé par thème : un article publié n'est envoyé qu'aux connexions
+ * des abonnés de son thème, sans lecture en base.
+ *
+ * Chaque article est sérialisé une seule fois, et la même chaîne JSON est
+ * placée dans la file bornée de chaque connexion. Les envois sont faits par un
+ * pool de taille fixe, dont la file des connexions en attente d'envoi est
+ * bornée : le nombre de threads ne dépend pas du nombre de clients lents.
+ * L'écriture sur le socket est bloquante ; elle échoue au-delà du délai
+ * d'écriture du conteneur (server.tomcat.connection-timeout), ce qui libère le
+ * thread d'envoi. Une écriture qui dure plus que le délai d'écriture, une file
+ * qui déborde ou une file d'envoi pleine déconnecte le client : il se
+ * reconnecte avec l'en-tête Last-Event-ID et
+ * reçoit les articles manqués depuis l'historique récent. Si ces articles ne sont plus
+ * dans l'historique (ou si l'application a redémarré), un événement « resync »
+ * lui demande de recharger son fil.
+ */
+@Log4j2
+@Service
+public class ArticleStreamService {
+
+    /**
+     * Nom des événements portant un nouvel article.
+     */
+    public static final String ARTICLE_EVENT = "article";
+
+    /**
+     * Nom de l'événement demandant au client de recharger son fil.
+     */
+    public static final String RESYNC_EVENT = "resync";
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final long heartbeatSeconds;
+    private final int bufferSize;
+    private final int senderThreads;
+    private final int maxPendingSends;
+    private final long writeTimeoutNanos;
+
+    /**
+     * Identifie le démarrage courant : les IDs d'événements d'un démarrage
+     * précédent ne peuvent pas être repris.
+     */
+    private final long epoch = System.currentTimeMillis();
+
+    /**
+     * Protège l'historique et les registres. La publication place l'article
+     * dans l'historique et dans les files des connexions sous ce verrou : une
+     * connexion qui reprend le flux reçoit chaque article exactement une fois.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final int replaySize;
+    private final ArrayDeque<Event> replay;
+    private final Map<Long, Set<Connection>> connectionsByTheme = new HashMap<>();
+    private final Map<Long, Set<Connection>> connectionsByUser = new HashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private long sequence;
+
+    private final Counter published;
+    private final Counter delivered;
+    private final Counter overflowed;
+    private final Counter resyncs;
+    private final Counter stalled;
+
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeats;
+
+    /**
+     * Constructeur pour injecter les dépendances et la configuration du service.
+     *
+     * @param objectMapper     le sérialiseur JSON des articles.
+     * @param meterRegistry    le registre des métriques du flux.
+     * @param timeoutMillis    la durée maximale d'une connexion, après laquelle
+     *                         le client se reconnecte.
+     * @param heartbeatSeconds l'intervalle entre deux battements de cœur.
+     * @param bufferSize       le nombre maximal d'événements en attente par
+     *                         connexion.
+     * @param replaySize       le nombre d'articles récents gardés pour la
+     *                         reprise.
+     * @param senderThreads    le nombre de threads d'envoi.
+     * @param maxPendingSends  le nombre maximal de connexions en attente d'un
+     *                         thread d'envoi.
+     * @param writeTimeoutMillis la durée maximale d'une écriture, après laquelle
+     *                           le client est déconnecté.
+     */
+    public ArticleStreamService(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${mdd.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${mdd.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+            @Value("${mdd.stream.buffer-size:64}") int bufferSize,
+            @Value("${mdd.stream.replay-size:1000}") int replaySize,
+            @Value("${mdd.stream.sender-threads:4}") int senderThreads,
+            @Value("${mdd.stream.max-pending-sends:10000}") int maxPendingSends,
+            @Value("${mdd.stream.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.replay = new ArrayDeque<>(replaySize);
+        this.senderThreads = senderThreads;
+        this.maxPendingSends = maxPendingSends;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+
+        this.published = Counter.builder("mdd.stream.published")
+                .description("Articles publiés sur le flux").register(meterRegistry);
+        this.delivered = Counter.builder("mdd.stream.delivered")
+                .description("Articles placés dans la file d'une connexion").register(meterRegistry);
+        this.overflowed = Counter.builder("mdd.stream.overflow")
+                .description("Connexions fermées car leur file, ou la file d'envoi, était pleine")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("mdd.stream.resync")
+                .description("Reprises impossibles, le client recharge son fil").register(meterRegistry);
+        this.stalled = Counter.builder("mdd.stream.stalled")
+                .description("Connexions fermées car une écriture dépassait le délai").register(meterRegistry);
+        Gauge.builder("mdd.stream.connections", connectionCount, AtomicInteger::get)
+                .description("Connexions ouvertes sur le flux").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        // Threads et file bornés : une connexion qui ne trouve pas de place est
+        // fermée (voir Connection.drain), les clients lents n'ajoutent pas de threads
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxPendingSends), runnable -> {
+                    Thread thread = new Thread(runnable, "article-stream-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "article-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        heartbeats.scheduleAtFixedRate(this::disconnectStalled, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ferme les connexions ouvertes : les clients se reconnecteront à
+     * l'instance suivante.
+     */
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+        for (Connection connection : allConnections()) {
+            close(connection);
+        }
+        senders.shutdown();
+    }
+
+    /**
+     * Ouvre une connexion sur le flux pour un utilisateur. Si le client reprend
+     * un flux interrompu, les articles publiés depuis son dernier événement sont
+     * envoyés en premier.
+     *
+     * @param userId      l'ID de l'utilisateur.
+     * @param themeIds    les IDs des thèmes auxquels il est abonné.
+     * @param lastEventId l'ID du dernier événement reçu (en-tête Last-Event-ID),
+     *                    ou null pour une nouvelle connexion.
+     * @return l'émetteur de la connexion.
+     */
+    public SseEmitter connect(Long userId, Collection<Long> themeIds, String lastEventId) {
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Connection connection = new Connection(userId, themeIds, emitter, bufferSize);
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(() -> unregister(connection));
+        emitter.onError(error -> unregister(connection));
+
+        lock.lock();
+        try {
+            if (lastEventId != null && !enqueueMissed(connection, lastEventId)) {
+                resyncs.increment();
+                connection.buffer.clear();
+                connection.buffer.offer(SseEmitter.event().name(RESYNC_EVENT).id(eventId(sequence)).data(""));
+            }
+            connectionsByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(connection);
+            for (Long themeId : connection.themeIds) {
+                connectionsByTheme.computeIfAbsent(themeId, id -> new HashSet<>()).add(connection);
+            }
+        } finally {
+            lock.unlock();
+        }
+        connectionCount.incrementAndGet();
+        connection.drain();
+        log.debug("Connexion au flux de l'utilisateur {} ({} thèmes)", userId, connection.themeIds.size());
+        return emitter;
+    }
+
+    /**
+     * Publie un nouvel article aux connexions des abonnés de son thème. Doit être
+     * appelé une fois l'article enregistré en base.
+     *
+     * @param article l'article publié.
+     */
+    public void publish(ArticleDTO article) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(article);
+        } catch (JsonProcessingException e) {
+            log.error("Article {} non publié sur le flux", article.getId(), e);
+            return;
+        }
+        published.increment();
+
+        List<Connection> targets = new ArrayList<>();
+        List<Connection> overflowing = new ArrayList<>();
+        lock.lock();
+        try {
+            Event event = new Event(++sequence, article.getThemeId(), json);
+            if (replay.size() >= replaySize) {
+                replay.pollFirst();
+            }
+            replay.addLast(event);
+            for (Connection connection : connectionsByTheme.getOrDefault(event.themeId, Set.of())) {
+                if (connection.buffer.offer(event.toSse(epoch))) {
+                    delivered.increment();
+                    targets.add(connection);
+                } else {
+                    overflowing.add(connection);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Connection connection : targets) {
+            connection.drain();
+        }
+        for (Connection connection : overflowing) {
+            // Client trop lent : il reprendra le flux avec Last-Event-ID
+            if (close(connection)) {
+                overflowed.increment();
+            }
+        }
+    }
+
+    /**
+     * Inscrit les connexions ouvertes d'un utilisateur aux thèmes auxquels il
+     * vient de s'abonner.
+     *
+     * @param userId   l'ID de l'utilisateur.
+     * @param themeIds les IDs des thèmes.
+     */
+    public void onSubscribed(Long userId, Collection<Long> themeIds) {
+        lock.lock();
+        try {
+            for (Connection connection : connectionsByUser.getOrDefault(userId, Set.of())) {
+                for (Long themeId : themeIds) {
+                    if (connection.themeIds.add(themeId)) {
+                        connectionsByTheme.computeIfAbsent(themeId, id -> new HashSet<>()).add(connection);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retire les connexions ouvertes d'un utilisateur des thèmes dont il vient de
+     * se désabonner.
+     *
+     * @param userId   l'ID de l'utilisateur.
+     * @param themeIds les IDs des thèmes.
+     */
+    public void onUnsubscribed(Long userId, Collection<Long> themeIds) {
+        lock.lock();
+        try {
+            for (Connection connection : connectionsByUser.getOrDefault(userId, Set.of())) {
+                for (Long themeId : themeIds) {
+                    if (connection.themeIds.remove(themeId)) {
+                        removeFromTheme(themeId, connection);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Place dans la file d'une connexion les articles de ses thèmes publiés
+     * après l'événement donné. Appelé sous le verrou.
+     *
+     * @return faux si la reprise est impossible : ID d'un autre démarrage,
+     *         articles sortis de l'historique ou trop nombreux pour la file.
+     */
+    private boolean enqueueMissed(Connection connection, String lastEventId) {
+        long lastSequence = parseSequence(lastEventId);
+        if (lastSequence < 0 || lastSequence > sequence) {
+            return false;
+        }
+        long oldest = replay.isEmpty() ? sequence + 1 : replay.peekFirst().sequence;
+        if (lastSequence + 1 < oldest) {
+            return false;
+        }
+        for (Event event : replay) {
+            if (event.sequence > lastSequence && connection.themeIds.contains(event.themeId)
+                    && !connection.buffer.offer(event.toSse(epoch))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lit le numéro de séquence d'un ID d'événement de la forme
+     * « démarrage-séquence ».
+     *
+     * @return le numéro de séquence, ou -1 si l'ID n'appartient pas au démarrage
+     *         courant.
+     */
+    private long parseSequence(String eventId) {
+        int separator = eventId.indexOf('-');
+        if (separator < 0) {
+            return -1;
+        }
+        try {
+            if (Long.parseLong(eventId.substring(0, separator)) != epoch) {
+                return -1;
+            }
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Envoie un commentaire SSE à chaque connexion, pour que les proxys ne
+     * ferment pas les connexions inactives et que les clients partis soient
+     * détectés. Les connexions dont la file est pleine sont ignorées.
+     */
+    private void heartbeat() {
+        for (Connection connection : allConnections()) {
+            if (connection.buffer.offer(SseEmitter.event().comment("ping"))) {
+                connection.drain();
+            }
+        }
+    }
+
+    /**
+     * Déconnecte les clients dont l'écriture en cours dure plus que le délai
+     * d'écriture : ils cessent de recevoir des articles et reprendront le flux
+     * avec Last-Event-ID. L'émetteur est fermé par le thread qui lui écrit, une
+     * fois l'écriture terminée ou abandonnée par le conteneur : aucun autre
+     * thread n'attend derrière l'écriture bloquée.
+     */
+    void disconnectStalled() {
+        long now = System.nanoTime();
+        for (Connection connection : allConnections()) {
+            long since = connection.sendingSince;
+            if (since != 0 && now - since > writeTimeoutNanos && close(connection)) {
+                stalled.increment();
+                log.debug("Connexion au flux de l'utilisateur {} fermée : écriture bloquée", connection.userId);
+            }
+        }
+    }
+
+    /**
+     * Crée l'émetteur d'une nouvelle connexion.
+     */
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    /**
+     * Désinscrit une connexion et ferme son émetteur. La fermeture attend la fin
+     * d'une écriture en cours : sans écriture en cours, l'émetteur est fermé
+     * immédiatement ; sinon, par le thread d'envoi à la fin de son écriture.
+     *
+     * @return faux si la connexion était déjà fermée.
+     */
+    private boolean close(Connection connection) {
+        if (!unregister(connection)) {
+            return false;
+        }
+        connection.completeIfIdle();
+        return true;
+    }
+
+    private List<Connection> allConnections() {
+        lock.lock();
+        try {
+            List<Connection> connections = new ArrayList<>();
+            connectionsByUser.values().forEach(connections::addAll);
+            return connections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return faux si la connexion était déjà désinscrite.
+     */
+    private boolean unregister(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Set<Connection> userConnections = connectionsByUser.get(connection.userId);
+            if (userConnections != null && userConnections.remove(connection) && userConnections.isEmpty()) {
+                connectionsByUser.remove(connection.userId);
+            }
+            for (Long themeId : connection.themeIds) {
+                removeFromTheme(themeId, connection);
+            }
+        } finally {
+            lock.unlock();
+        }
+        connection.buffer.clear();
+        connectionCount.decrementAndGet();
+        return true;
+    }
+
+    private void removeFromTheme(Long themeId, Connection connection) {
+        Set<Connection> themeConnections = connectionsByTheme.get(themeId);
+        if (themeConnections != null && themeConnections.remove(connection) && themeConnections.isEmpty()) {
+            connectionsByTheme.remove(themeId);
+        }
+    }
+
+    /**
+     * Article publié, gardé dans l'historique récent pour la reprise.
+     */
+    private record Event(long sequence, Long themeId, String json) {
+
+        private SseEventBuilder toSse(long epoch) {
+            return SseEmitter.event().name(ARTICLE_EVENT).id(epoch + "-" + sequence).data(json);
+        }
+    }
+
+    /**
+     * Connexion ouverte sur le flux, avec sa file bornée d'événements en
+     * attente d'envoi. Un seul thread d'envoi vide la file d'une connexion à la
+     * fois, ce qui préserve l'ordre des événements.
+     */
+    private final class Connection {
+
+        private final Long userId;
+        private final Set<Long> themeIds;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEventBuilder> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * Début (System.nanoTime) de l'écriture en cours, 0 hors écriture.
+         */
+        private volatile long sendingSince;
+
+        private Connection(Long userId, Collection<Long> themeIds, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.themeIds = new HashSet<>(themeIds);
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Demande l'envoi des événements en attente, sauf si un thread d'envoi
+         * s'en charge déjà. Si la file d'envoi est pleine, la connexion est
+         * fermée : le client reprendra le flux avec Last-Event-ID.
+         */
+        private void drain() {
+            if (!closed.get() && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    if (close(this) && !senders.isShutdown()) {
+                        overflowed.increment();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Ferme l'émetteur si aucun thread d'envoi ne lui écrit. Le drapeau
+         * d'envoi n'est jamais relâché : plus rien n'est écrit sur la connexion.
+         */
+        private void completeIfIdle() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    emitter.complete();
+                } catch (IllegalStateException e) {
+                    // Réponse déjà terminée par le conteneur
+                }
+            }
+        }
+
+        private void send() {
+            try {
+                SseEventBuilder event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    sendingSince = System.nanoTime();
+                    emitter.send(event);
+                    sendingSince = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client parti : le conteneur signale l'erreur à l'émetteur, la
+                // connexion est désinscrite sans attendre
+                log.debug("Connexion au flux de l'utilisateur {} fermée : {}", userId, e.getMessage());
+                unregister(this);
+            } finally {
+                sendingSince = 0;
+                draining.set(false);
+            }
+            // Fermée pendant l'écriture : l'émetteur est fermé par ce thread
+            if (closed.get()) {
+                completeIfIdle();
+            } else {
+                drain();
+            }
+        }
+    }
+}
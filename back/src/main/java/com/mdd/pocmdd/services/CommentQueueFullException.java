@@ -0,0 +1,22 @@
+package com.mdd.pocmdd.services;
+
+/**
+ * Levée lorsque la file d'écriture différée des commentaires est pleine et que
+ * le débordement est configuré en refus : le commentaire n'est pas enregistré.
+ */
+public class CommentQueueFullException extends RuntimeException {
+
+    /**
+     * Délai conseillé au client avant de réessayer, en secondes.
+     */
+    private final long retryAfterSeconds;
+
+    public CommentQueueFullException(long retryAfterSeconds) {
+        super("Trop de commentaires en attente d'enregistrement, réessayez plus tard");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
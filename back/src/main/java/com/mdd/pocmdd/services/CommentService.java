@@ -2,17 +2,26 @@ package com.mdd.pocmdd.services;
 
 import lombok.extern.log4j.Log4j2;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.mdd.pocmdd.models.Article;
 import com.mdd.pocmdd.models.Comment;
 import com.mdd.pocmdd.models.User;
 import com.mdd.pocmdd.payload.CommentPayload;
 import com.mdd.pocmdd.dto.CommentDTO;
+import com.mdd.pocmdd.dto.CommentPageDTO;
 import com.mdd.pocmdd.repository.CommentRepository;
 import com.mdd.pocmdd.repository.UserRespository;
 import com.mdd.pocmdd.repository.ArticleRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 
 @Log4j2
 @Service
@@ -21,6 +30,15 @@ public class CommentService {
     private final CommentRepository commentRepository;
     private final UserRespository userRepository;
     private final ArticleRepository articleRepository;
+    private final EntityManager entityManager;
+    private final DistributionSummary pageSize;
+    private final DistributionSummary commentCount;
+
+    /**
+     * Nombre de commentaires lus en flux entre deux vidages du contexte de
+     * persistance.
+     */
+    private static final int STREAM_CLEAR_INTERVAL = 500;
 
     /**
      * Constructeur du service pour injecter les dépendances nécessaires.
@@ -28,33 +46,109 @@ public class CommentService {
      * @param commentRepository Repository pour gérer les commentaires.
      * @param userRepository    Repository pour gérer les utilisateurs.
      * @param articleRepository Repository pour gérer les articles.
+     * @param entityManager     EntityManager, vidé régulièrement lors des lectures
+     *                          en flux.
+     * @param meterRegistry     Registre des métriques des pages de commentaires.
      */
     public CommentService(CommentRepository commentRepository, UserRespository userRepository,
-            ArticleRepository articleRepository) {
+            ArticleRepository articleRepository, EntityManager entityManager, MeterRegistry meterRegistry) {
         this.commentRepository = commentRepository;
         this.userRepository = userRepository;
         this.articleRepository = articleRepository;
+        this.entityManager = entityManager;
+        this.pageSize = DistributionSummary.builder("mdd.comments.page.size").baseUnit("comments")
+                .description("Nombre de commentaires renvoyés par page")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+        this.commentCount = DistributionSummary.builder("mdd.comments.count").baseUnit("comments")
+                .description("Nombre total de commentaires des articles dont une page est lue")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
     }
 
     /**
-     * Récupère tous les commentaires associés à un article en fonction de son ID.
+     * Nombre maximal de commentaires renvoyés par page.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Récupère une page de commentaires d'un article, du plus ancien au plus
+     * récent, à partir d'un ID de commentaire (pagination par clé). Le coût d'une
+     * page ne dépend pas du nombre total de commentaires de l'article.
+     * 
+     * L'ordre est celui des IDs, qui ne croissent qu'au sein d'une instance :
+     * chaque instance réserve ses IDs par blocs (voir IdGenerators). Avec
+     * plusieurs instances, un commentaire enregistré après la lecture d'une page
+     * peut recevoir un ID inférieur à son curseur ; il n'apparaît alors qu'en
+     * relisant depuis la première page.
      * 
      * @param articleId ID de l'article pour lequel récupérer les commentaires.
-     * @return Une liste de CommentDTO représentant les commentaires.
+     * @param afterId   ID du dernier commentaire déjà reçu, ou null pour la
+     *                  première page.
+     * @param limit     Nombre maximal de commentaires dans la page.
+     * @return Une page de CommentDTO avec le nombre total de commentaires.
      */
-    public List<CommentDTO> getCommentsByArticleId(Long articleId) {
-        // Récupérer les commentaires liés à l'article.
-        List<Comment> comments = commentRepository.findByArticleId(articleId);
+    @Transactional(readOnly = true)
+    public CommentPageDTO getCommentsByArticleId(Long articleId, Long afterId, int limit) {
+        // Le nombre total est tenu à jour sur l'article : lecture par clé primaire, sans compter les commentaires
+        long totalCount = articleRepository.findCommentCountById(articleId).orElse(0L);
+        return getCommentsByArticleId(articleId, afterId, limit, totalCount);
+    }
+
+    /**
+     * Récupère une page de commentaires d'un article dont le nombre total de
+     * commentaires est déjà connu (lu avec l'article).
+     * 
+     * @param articleId  ID de l'article pour lequel récupérer les commentaires.
+     * @param afterId    ID du dernier commentaire déjà reçu, ou null pour la
+     *                   première page.
+     * @param limit      Nombre maximal de commentaires dans la page.
+     * @param totalCount Nombre total de commentaires de l'article.
+     * @return Une page de CommentDTO avec le nombre total de commentaires.
+     */
+    @Transactional(readOnly = true)
+    public CommentPageDTO getCommentsByArticleId(Long articleId, Long afterId, int limit, long totalCount) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Récupérer la page de commentaires, avec leurs auteurs, en une seule requête.
+        // Un commentaire de plus est demandé pour savoir s'il existe une page suivante.
+        List<Comment> comments = commentRepository.findByArticleIdAndIdGreaterThanOrderByIdAsc(articleId,
+                afterId == null ? 0L : afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasNext = comments.size() > pageSize;
+        if (hasNext) {
+            comments = comments.subList(0, pageSize);
+        }
 
         // Mapper les entités Comment vers des DTO.
-        return comments.stream()
-                .map(comment -> new CommentDTO(
-                        comment.getId(), // ID du commentaire.
-                        comment.getContent(), // Contenu du commentaire.
-                        comment.getUser().getId(), // ID de l'utilisateur ayant posté le commentaire.
-                        comment.getUser().getUsername(), // Nom de l'utilisateur.
-                        comment.getArticle().getId())) // ID de l'article.
+        List<CommentDTO> commentDTOs = comments.stream()
+                .map(comment -> toDto(comment, articleId))
                 .collect(Collectors.toList());
+        Long nextAfterId = hasNext ? comments.get(comments.size() - 1).getId() : null;
+        pageSize.record(commentDTOs.size());
+        commentCount.record(totalCount);
+        return new CommentPageDTO(commentDTOs, totalCount, nextAfterId);
+    }
+
+    /**
+     * Parcourt en flux les commentaires d'un article. Les lignes sont lues avec un
+     * curseur JDBC en avant seulement et chaque commentaire est transmis au
+     * consommateur dès sa lecture, sans construire la liste complète en mémoire.
+     * 
+     * @param articleId ID de l'article pour lequel lire les commentaires.
+     * @param consumer  Consommateur recevant chaque CommentDTO.
+     */
+    @Transactional(readOnly = true)
+    public void streamCommentsByArticleId(Long articleId, Consumer<CommentDTO> consumer) {
+        try (Stream<Comment> comments = commentRepository.streamByArticleId(articleId)) {
+            int count = 0;
+            Iterator<Comment> iterator = comments.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(toDto(iterator.next(), articleId));
+                // Détache les commentaires déjà écrits pour que le contexte de persistance ne
+                // grossisse pas.
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
     /**
@@ -63,6 +157,7 @@ public class CommentService {
      * @param commentPayload Données du commentaire à sauvegarder.
      * @return Un CommentDTO représentant le commentaire sauvegardé.
      */
+    @Transactional
     public CommentDTO saveComment(CommentPayload commentPayload) {
         // Récupérer l'article correspondant à l'ID fourni.
         Optional<Article> article = articleRepository.findById(commentPayload.getArticleId());
@@ -77,8 +172,9 @@ public class CommentService {
         comment.setUser(user.get()); // Associer l'utilisateur au commentaire.
         comment.setAuthorName(user.get().getUsername()); // Définir le nom de l'auteur.
 
-        // Sauvegarder le commentaire en base de données.
+        // Sauvegarder le commentaire en base de données et l'ajouter au nombre de commentaires de l'article.
         comment = commentRepository.save(comment);
+        articleRepository.incrementCommentCount(commentPayload.getArticleId(), 1);
 
         // Retourner le commentaire sous forme de DTO.
         return new CommentDTO(
@@ -88,4 +184,16 @@ public class CommentService {
                 comment.getUser().getUsername(), // Nom de l'utilisateur.
                 comment.getArticle().getId()); // ID de l'article.
     }
+
+    /**
+     * Convertit un commentaire, dont l'auteur est chargé, en CommentDTO.
+     */
+    private CommentDTO toDto(Comment comment, Long articleId) {
+        return new CommentDTO(
+                comment.getId(), // ID du commentaire.
+                comment.getContent(), // Contenu du commentaire.
+                comment.getUser().getId(), // ID de l'utilisateur ayant posté le commentaire.
+                comment.getUser().getUsername(), // Nom de l'utilisateur.
+                articleId); // ID de l'article.
+    }
 }
@@ -0,0 +1,408 @@
+package com.mdd.pocmdd.services;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mdd.pocmdd.dto.CommentDTO;
+import com.mdd.pocmdd.models.Article;
+import com.mdd.pocmdd.models.Comment;
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.payload.CommentPayload;
+import com.mdd.pocmdd.repository.ArticleRepository;
+import com.mdd.pocmdd.repository.UserRespository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Écriture différée des commentaires (mode optionnel,
+ * mdd.comments.write-behind.enabled). Un commentaire validé est placé dans une
+ * file bornée en mémoire et le client reçoit immédiatement un accusé de
+ * réception ; un thread d'écriture unique vide la file par lots, chaque lot
+ * dans une seule transaction (validation groupée) avec des insertions JDBC
+ * regroupées. Une rafale de commentaires sur un article viral occupe donc une
+ * connexion par lot au lieu d'une par commentaire.
+ *
+ * La validation ne lit la base qu'au premier commentaire d'un article ou d'un
+ * utilisateur : les articles et les utilisateurs connus sont gardés en mémoire
+ * (ils ne sont jamais supprimés). La file est vidée à l'arrêt de
+ * l'application ; seuls les commentaires en attente lors d'un arrêt brutal sont
+ * perdus, au plus le contenu de la file.
+ *
+ * Un lot dont l'écriture échoue pour une raison passagère (base indisponible,
+ * pool saturé, verrou) est réécrit tel quel après une attente croissante : la
+ * file se remplit pendant la panne et le débordement protège l'application.
+ * Seule une erreur due aux données (contrainte violée, auteur supprimé) fait
+ * réécrire le lot un par un, pour n'écarter que les commentaires en cause.
+ */
+@Log4j2
+@Service
+public class CommentWriteBehindService {
+
+    /**
+     * Comportement lorsque la file est pleine.
+     */
+    public enum Overflow {
+        /** Le commentaire est refusé (503 avec Retry-After). */
+        REJECT,
+        /** Le commentaire est enregistré immédiatement, hors file. */
+        SYNC
+    }
+
+    private static final int KNOWN_ENTRIES = 10000;
+
+    /**
+     * Attente avant la première reprise d'une écriture, doublée à chaque échec
+     * jusqu'au maximum.
+     */
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    /**
+     * Nombre d'essais d'une écriture pendant l'arrêt de l'application, qui ne
+     * doit pas attendre indéfiniment le retour de la base.
+     */
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    private final ArticleRepository articleRepository;
+    private final UserRespository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int flushSize;
+    private final long flushLatencyMillis;
+    private final Overflow overflow;
+    private final long retryAfterSeconds;
+    private final BlockingQueue<CommentPayload> queue;
+
+    /**
+     * Articles dont l'existence a déjà été vérifiée.
+     */
+    private final LruCache<Long, Boolean> knownArticles = new LruCache<>(KNOWN_ENTRIES);
+
+    /**
+     * Noms des utilisateurs dont l'existence a déjà été vérifiée, pour l'accusé
+     * de réception (le nom enregistré est relu à l'écriture).
+     */
+    private final LruCache<Long, String> knownUsers = new LruCache<>(KNOWN_ENTRIES);
+
+    private final Counter accepted;
+    private final Counter overflowed;
+    private final Counter failed;
+    private final Counter retried;
+    private final Timer flushTime;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Constructeur pour injecter les dépendances et la configuration du service.
+     *
+     * @param articleRepository  le référentiel des articles.
+     * @param userRepository     le référentiel des utilisateurs.
+     * @param entityManager      l'EntityManager des lots d'écriture.
+     * @param transactionManager le gestionnaire des transactions des lots.
+     * @param meterRegistry      le registre des métriques de la file.
+     * @param enabled            vrai pour activer l'écriture différée.
+     * @param queueCapacity      le nombre maximal de commentaires en attente.
+     * @param flushSize          le nombre maximal de commentaires par lot.
+     * @param flushLatencyMillis le délai maximal d'attente d'un lot incomplet.
+     * @param overflow           le comportement lorsque la file est pleine.
+     * @param retryAfterSeconds  le délai conseillé aux clients refusés.
+     */
+    public CommentWriteBehindService(ArticleRepository articleRepository, UserRespository userRepository,
+            EntityManager entityManager, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${mdd.comments.write-behind.enabled:false}") boolean enabled,
+            @Value("${mdd.comments.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${mdd.comments.write-behind.flush-size:200}") int flushSize,
+            @Value("${mdd.comments.write-behind.flush-latency-ms:50}") long flushLatencyMillis,
+            @Value("${mdd.comments.write-behind.overflow:REJECT}") Overflow overflow,
+            @Value("${mdd.comments.write-behind.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.articleRepository = articleRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.flushSize = flushSize;
+        this.flushLatencyMillis = flushLatencyMillis;
+        this.overflow = overflow;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.accepted = Counter.builder("mdd.comments.write-behind.accepted")
+                .description("Commentaires placés dans la file d'écriture").register(meterRegistry);
+        this.overflowed = Counter.builder("mdd.comments.write-behind.overflow").tag("policy", overflow.name())
+                .description("Commentaires arrivés alors que la file était pleine").register(meterRegistry);
+        this.failed = Counter.builder("mdd.comments.write-behind.failed")
+                .description("Commentaires acceptés mais non enregistrés").register(meterRegistry);
+        this.retried = Counter.builder("mdd.comments.write-behind.retries")
+                .description("Écritures reprises après une erreur passagère").register(meterRegistry);
+        this.flushTime = Timer.builder("mdd.comments.write-behind.flush")
+                .description("Durée d'écriture d'un lot de commentaires").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("mdd.comments.write-behind.batch.size").baseUnit("comments")
+                .description("Nombre de commentaires par lot écrit").register(meterRegistry);
+        Gauge.builder("mdd.comments.write-behind.queue.size", queue, BlockingQueue::size)
+                .description("Commentaires en attente d'écriture").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "comment-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Écriture différée des commentaires activée (lots de {}, {} ms)", flushSize, flushLatencyMillis);
+    }
+
+    /**
+     * Arrête le thread d'écriture et enregistre les commentaires encore en
+     * attente.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        List<CommentPayload> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        while (!remaining.isEmpty()) {
+            List<CommentPayload> batch = remaining.subList(0, Math.min(flushSize, remaining.size()));
+            write(new ArrayList<>(batch));
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return vrai si l'écriture différée est activée.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Valide un commentaire et le place dans la file d'écriture.
+     *
+     * @param payload le commentaire à enregistrer.
+     * @return l'accusé de réception (sans ID, attribué à l'écriture), ou null si
+     *         la file est pleine et que le commentaire doit être enregistré
+     *         immédiatement par l'appelant (débordement SYNC).
+     * @throws IllegalArgumentException  si le commentaire est vide ou si
+     *                                   l'article ou l'auteur n'existe pas.
+     * @throws CommentQueueFullException si la file est pleine (débordement
+     *                                   REJECT).
+     */
+    public CommentDTO submit(CommentPayload payload) {
+        if (payload.getContent() == null || payload.getContent().isBlank()) {
+            throw new IllegalArgumentException("Commentaire vide");
+        }
+        if (payload.getArticleId() == null || payload.getUserId() == null) {
+            throw new IllegalArgumentException("Article ou auteur manquant");
+        }
+        if (knownArticles.get(payload.getArticleId()) == null) {
+            if (!articleRepository.existsById(payload.getArticleId())) {
+                throw new IllegalArgumentException("Article non trouvé");
+            }
+            knownArticles.put(payload.getArticleId(), Boolean.TRUE);
+        }
+        String username = knownUsers.get(payload.getUserId());
+        if (username == null) {
+            username = userRepository.findUsernameById(payload.getUserId())
+                    .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
+            knownUsers.put(payload.getUserId(), username);
+        }
+
+        if (!queue.offer(payload)) {
+            overflowed.increment();
+            if (overflow == Overflow.SYNC) {
+                return null;
+            }
+            throw new CommentQueueFullException(retryAfterSeconds);
+        }
+        accepted.increment();
+        return new CommentDTO(null, payload.getContent(), payload.getUserId(), username, payload.getArticleId());
+    }
+
+    /**
+     * Boucle du thread d'écriture : attend un premier commentaire, complète le
+     * lot pendant au plus flushLatencyMillis, puis l'écrit.
+     */
+    private void writeLoop() {
+        List<CommentPayload> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                CommentPayload first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushLatencyMillis);
+                while (batch.size() < flushSize) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= flushSize || remaining <= 0) {
+                        break;
+                    }
+                    CommentPayload next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erreur inattendue du thread d'écriture des commentaires", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Écrit un lot en une transaction, en le reprenant tel quel après une erreur
+     * passagère. Après une erreur due aux données, les commentaires sont réécrits
+     * un par un pour n'écarter que ceux qui posent problème.
+     */
+    private void write(List<CommentPayload> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (insertWithRetry(batch)) {
+                batchSize.record(batch.size());
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Échec de l'écriture d'un lot de {} commentaires, reprise un par un : {}", batch.size(),
+                    e.getMessage());
+            for (CommentPayload payload : batch) {
+                try {
+                    if (insertWithRetry(List.of(payload))) {
+                        continue;
+                    }
+                } catch (RuntimeException single) {
+                    log.error("Commentaire écarté (article {}, utilisateur {}) : {}", payload.getArticleId(),
+                            payload.getUserId(), single.getMessage());
+                }
+                failed.increment();
+            }
+            return;
+        }
+        failed.increment(batch.size());
+        log.error("Lot de {} commentaires perdu : base indisponible pendant l'arrêt", batch.size());
+    }
+
+    /**
+     * Insère des commentaires, en reprenant après chaque erreur passagère avec
+     * une attente croissante ; pendant l'arrêt, le nombre d'essais est borné.
+     *
+     * @return faux si les commentaires n'ont pas pu être écrits avant l'arrêt.
+     * @throws RuntimeException l'erreur due aux données, sans reprise.
+     */
+    private boolean insertWithRetry(List<CommentPayload> comments) {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        int attempts = 0;
+        while (true) {
+            try {
+                flushTime.record(() -> insert(comments));
+                return true;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                attempts++;
+                if ((!running || Thread.currentThread().isInterrupted()) && attempts >= SHUTDOWN_ATTEMPTS) {
+                    return false;
+                }
+                retried.increment();
+                log.warn("Écriture de {} commentaires impossible, nouvel essai dans {} ms : {}", comments.size(),
+                        backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return vrai si l'erreur est passagère (base, connexion ou verrou
+     *         indisponibles) et que la même écriture peut réussir plus tard.
+     */
+    private static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(List<CommentPayload> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Auteurs du lot en une seule requête : le nom enregistré est le nom courant
+            Set<Long> userIds = batch.stream().map(CommentPayload::getUserId).collect(Collectors.toSet());
+            Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            for (CommentPayload payload : batch) {
+                User user = users.get(payload.getUserId());
+                if (user == null) {
+                    throw new IllegalStateException("Utilisateur " + payload.getUserId() + " non trouvé");
+                }
+                Comment comment = new Comment();
+                comment.setContent(payload.getContent());
+                comment.setArticle(entityManager.getReference(Article.class, payload.getArticleId()));
+                comment.setUser(user);
+                comment.setAuthorName(user.getUsername());
+                entityManager.persist(comment);
+            }
+            // Un compteur par article du lot, mis à jour dans l'ordre des ID pour que deux
+            // transactions verrouillent les articles dans le même ordre
+            Map<Long, Long> counts = batch.stream().collect(Collectors.groupingBy(CommentPayload::getArticleId,
+                    TreeMap::new, Collectors.counting()));
+            counts.forEach(articleRepository::incrementCommentCount);
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+}
@@ -0,0 +1,343 @@
+package com.mdd.pocmdd.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mdd.pocmdd.config.IdSequenceAligner;
+import com.mdd.pocmdd.models.IdGenerators;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Générateur de jeux de données volumineux, actif avec le profil "datagen" :
+ *
+ * <pre>
+ * mvn spring-boot:run -Dspring-boot.run.profiles=perf,datagen     (base embarquée)
+ * mvn spring-boot:run -Dspring-boot.run.profiles=datagen          (MySQL)
+ * </pre>
+ *
+ * Les lignes sont insérées directement par lots JDBC, avec des IDs explicites
+ * qui suivent les données existantes. Les distributions sont asymétriques (loi
+ * de Zipf) : quelques thèmes concentrent la plupart des articles et des
+ * abonnements, quelques auteurs écrivent la plupart des articles, et quelques
+ * articles « viraux » reçoivent la plupart des commentaires. Le jeu produit ne
+ * dépend que de la graine et des volumes demandés (sur une base vide, deux
+ * exécutions produisent les mêmes lignes).
+ * Tous les utilisateurs générés ont le mot de passe mdd.datagen.password.
+ */
+@Log4j2
+@Component
+@Profile("datagen")
+public class DatasetGenerator implements ApplicationRunner {
+
+    private static final String[] WORDS = { "java", "spring", "angular", "python", "rust", "go", "kotlin",
+            "docker", "kubernetes", "cloud", "database", "index", "cache", "thread", "stream", "lambda", "api",
+            "rest", "graphql", "security", "token", "test", "performance", "latence", "débit", "mémoire",
+            "requête", "transaction", "architecture", "microservice", "frontend", "backend", "compilateur",
+            "algorithme", "réseau", "linux", "git", "pipeline", "déploiement", "monitoring", "observabilité",
+            "typescript", "react", "sql", "nosql", "mysql", "hibernate", "jvm", "garbage", "collector" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final IdSequenceAligner idSequenceAligner;
+
+    @Value("${mdd.datagen.seed:42}")
+    private long seed;
+
+    @Value("${mdd.datagen.themes:50}")
+    private int themeCount;
+
+    @Value("${mdd.datagen.users:10000}")
+    private int userCount;
+
+    @Value("${mdd.datagen.subscriptions-per-user:5}")
+    private int subscriptionsPerUser;
+
+    @Value("${mdd.datagen.articles:1000000}")
+    private int articleCount;
+
+    @Value("${mdd.datagen.comments:5000000}")
+    private int commentCount;
+
+    // Exposants de Zipf : 0 donne une distribution uniforme, plus grand = plus concentrée
+    @Value("${mdd.datagen.theme-skew:1.1}")
+    private double themeSkew;
+
+    @Value("${mdd.datagen.author-skew:1.2}")
+    private double authorSkew;
+
+    @Value("${mdd.datagen.comment-skew:1.3}")
+    private double commentSkew;
+
+    @Value("${mdd.datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${mdd.datagen.days:365}")
+    private int days;
+
+    // Date du dernier article généré ; fixe pour que le jeu soit reproductible
+    @Value("${mdd.datagen.end:2025-01-01T00:00:00}")
+    private String end;
+
+    @Value("${mdd.datagen.password:Password1}")
+    private String password;
+
+    /**
+     * Constructeur pour injecter les dépendances nécessaires.
+     *
+     * @param jdbcTemplate       l'accès JDBC utilisé pour les insertions par lots.
+     * @param transactionManager le gestionnaire de transactions (une transaction
+     *                           par lot).
+     * @param passwordEncoder    l'encodeur du mot de passe commun des
+     *                           utilisateurs.
+     * @param idSequenceAligner  l'alignement des blocs d'IDs, après insertion.
+     */
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            BCryptPasswordEncoder passwordEncoder, IdSequenceAligner idSequenceAligner) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.idSequenceAligner = idSequenceAligner;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (articleCount + commentCount > 0 && (themeCount == 0 || userCount == 0)) {
+            throw new IllegalStateException("Des thèmes et des utilisateurs sont nécessaires pour générer des articles");
+        }
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        log.info("Génération : {} thèmes, {} utilisateurs, {} articles, {} commentaires (graine {})", themeCount,
+                userCount, articleCount, commentCount, seed);
+
+        long firstTheme = nextId("themes");
+        long firstUser = nextId("users");
+        long firstArticle = nextId("articles");
+        long firstComment = nextId("comments");
+
+        generateThemes(firstTheme);
+        generateUsers(firstUser, firstTheme, random.split());
+        generateArticles(firstArticle, firstUser, firstTheme, random.split());
+        generateComments(firstComment, firstArticle, firstUser, random.split());
+        // Les IDs ayant été fournis explicitement, les blocs d'IDs d'Hibernate
+        // doivent reprendre au-delà
+        idSequenceAligner.align();
+
+        log.info("Génération terminée en {} s", Duration.ofNanos(System.nanoTime() - start).toSeconds());
+    }
+
+    private void generateThemes(long firstId) {
+        Batch batch = new Batch("insert into themes (id, title, description) values (?, ?, ?)");
+        for (int i = 0; i < themeCount; i++) {
+            long id = firstId + i;
+            batch.add(id, "Thème " + id, "Thème généré n°" + (i + 1));
+        }
+        batch.flush();
+    }
+
+    /**
+     * Utilisateurs et abonnements : les thèmes suivis sont tirés selon leur
+     * popularité.
+     */
+    private void generateUsers(long firstId, long firstTheme, SplittableRandom random) {
+        String hash = passwordEncoder.encode(password);
+        Batch users = new Batch("insert into users (id, username, email, password, role, subscription_version)"
+                + " values (?, ?, ?, ?, 'User', 0)");
+        for (int i = 0; i < userCount; i++) {
+            long id = firstId + i;
+            users.add(id, "gen" + id, "gen" + id + "@example.com", hash);
+        }
+        users.flush();
+
+        // Les abonnements sont insérés une fois tous les utilisateurs présents
+        ZipfSampler themes = new ZipfSampler(themeCount, themeSkew);
+        Batch subscriptions = new Batch("insert into subscription (user_id, theme_id) values (?, ?)");
+        int wanted = Math.min(subscriptionsPerUser, themeCount);
+        for (int i = 0; i < userCount; i++) {
+            Set<Long> followed = new LinkedHashSet<>();
+            while (followed.size() < wanted) {
+                followed.add(firstTheme + themes.sample(random));
+            }
+            for (Long themeId : followed) {
+                subscriptions.add(firstId + i, themeId);
+            }
+        }
+        subscriptions.flush();
+    }
+
+    /**
+     * Articles du plus ancien au plus récent, répartis sur la période : le thème
+     * suit la popularité des thèmes, l'auteur celle des auteurs.
+     */
+    private void generateArticles(long firstId, long firstUser, long firstTheme, SplittableRandom random) {
+        ZipfSampler themes = new ZipfSampler(themeCount, themeSkew);
+        ZipfSampler authors = new ZipfSampler(userCount, authorSkew);
+        long[] authorIds = permutation(firstUser, userCount, random);
+        LocalDateTime first = LocalDateTime.parse(end).minusDays(days);
+        long stepMillis = Math.max(1, Duration.ofDays(days).toMillis() / Math.max(1, articleCount));
+        Batch batch = new Batch(
+                "insert into articles (id, title, content, created_at, user_id, theme_id) values (?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < articleCount; i++) {
+            long id = firstId + i;
+            LocalDateTime createdAt = first.plusNanos((i * stepMillis + random.nextLong(stepMillis)) * 1_000_000);
+            batch.add(id, capitalize(text(random, 3 + random.nextInt(6))), text(random, 40 + random.nextInt(200)),
+                    createdAt, authorIds[authors.sample(random)], firstTheme + themes.sample(random));
+        }
+        batch.flush();
+    }
+
+    /**
+     * Commentaires : l'article suit une loi de Zipf sur un ordre aléatoire des
+     * articles, pour que les articles viraux soient répartis dans le temps. Le
+     * nombre de commentaires de chaque article est ensuite reporté sur l'article.
+     */
+    private void generateComments(long firstId, long firstArticle, long firstUser, SplittableRandom random) {
+        if (articleCount == 0) {
+            return;
+        }
+        ZipfSampler articles = new ZipfSampler(articleCount, commentSkew);
+        long[] articleIds = permutation(firstArticle, articleCount, random);
+        Batch batch = new Batch(
+                "insert into comments (id, content, user_id, article_id, author_name) values (?, ?, ?, ?, ?)");
+        long[] counts = new long[articleCount];
+        for (int i = 0; i < commentCount; i++) {
+            long userId = firstUser + random.nextInt(userCount);
+            long articleId = articleIds[articles.sample(random)];
+            batch.add(firstId + i, text(random, 5 + random.nextInt(40)), userId, articleId, "gen" + userId);
+            counts[(int) (articleId - firstArticle)]++;
+        }
+        batch.flush();
+
+        Batch commentCounts = new Batch("update articles set comment_count = ? where id = ?");
+        for (int i = 0; i < articleCount; i++) {
+            if (counts[i] > 0) {
+                commentCounts.add(counts[i], firstArticle + i);
+            }
+        }
+        commentCounts.flush();
+    }
+
+    /**
+     * Premier ID libre d'une table : au-delà de son plus grand ID et des blocs
+     * d'IDs déjà réservés par l'application.
+     */
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        List<Long> reserved = jdbcTemplate.queryForList("select " + IdGenerators.VALUE_COLUMN + " from "
+                + IdGenerators.TABLE + " where " + IdGenerators.SEGMENT_COLUMN + " = ?", Long.class, table);
+        long next = max == null ? 1 : max + 1;
+        if (!reserved.isEmpty() && reserved.get(0) != null) {
+            next = Math.max(next, reserved.get(0) + 1);
+        }
+        return next;
+    }
+
+    private static long[] permutation(long firstId, int count, SplittableRandom random) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = firstId + i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    private static String text(SplittableRandom random, int wordCount) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    /**
+     * Lot de lignes à insérer, envoyé en une seule transaction.
+     */
+    private final class Batch {
+
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>(batchSize);
+        private long inserted;
+
+        private Batch(String sql) {
+            this.sql = sql;
+        }
+
+        private void add(Object... row) {
+            rows.add(row);
+            if (isFull()) {
+                flush();
+            }
+        }
+
+        private boolean isFull() {
+            return rows.size() >= batchSize;
+        }
+
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+            inserted += rows.size();
+            rows.clear();
+            if (inserted % (batchSize * 100L) == 0) {
+                log.info("{} lignes insérées : {}", inserted, sql.substring(0, sql.indexOf('(')).trim());
+            }
+        }
+    }
+
+    /**
+     * Tirage d'un rang entre 0 et n - 1 selon une loi de Zipf d'exposant s : le
+     * rang k est tiré avec une probabilité proportionnelle à 1 / (k + 1)^s.
+     */
+    private static final class ZipfSampler {
+
+        private final double[] cumulative;
+
+        private ZipfSampler(int n, double s) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int k = 0; k < n; k++) {
+                total += 1 / Math.pow(k + 1, s);
+                cumulative[k] = total;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= total;
+            }
+        }
+
+        private int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mdd.pocmdd.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import lombok.Getter;
+
+/**
+ * Position dans le fil d'actualité, trié par date de création puis par ID
+ * décroissants. Le curseur est transmis au client sous forme opaque (Base64
+ * URL) afin qu'il n'en dépende pas.
+ */
+@Getter
+public class FeedCursor {
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public FeedCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Encode le curseur sous forme de chaîne opaque.
+     *
+     * @return le curseur encodé.
+     */
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un curseur reçu du client.
+     *
+     * @param cursor le curseur encodé.
+     * @return le curseur décodé.
+     * @throws IllegalArgumentException si le curseur est invalide.
+     */
+    public static FeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur invalide", e);
+        }
+    }
+}
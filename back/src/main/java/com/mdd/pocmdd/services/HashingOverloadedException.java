@@ -0,0 +1,22 @@
+package com.mdd.pocmdd.services;
+
+/**
+ * Levée lorsque l'exécuteur de hachage des mots de passe est saturé : la
+ * requête est refusée immédiatement plutôt que d'attendre.
+ */
+public class HashingOverloadedException extends RuntimeException {
+
+    /**
+     * Délai conseillé au client avant de réessayer, en secondes.
+     */
+    private final long retryAfterSeconds;
+
+    public HashingOverloadedException(long retryAfterSeconds) {
+        super("Trop de demandes d'authentification en cours, réessayez plus tard");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
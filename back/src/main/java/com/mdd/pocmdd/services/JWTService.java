@@ -2,6 +2,7 @@ package com.mdd.pocmdd.services;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwsHeader;
@@ -20,6 +21,16 @@ import com.mdd.pocmdd.models.User;
 @Service
 public class JWTService {
 
+        /**
+         * Revendication portant les IDs des thèmes suivis par l'utilisateur.
+         */
+        public static final String THEMES_CLAIM = "themes";
+
+        /**
+         * Revendication portant la version des abonnements à l'émission du token.
+         */
+        public static final String SUBSCRIPTION_VERSION_CLAIM = "subv";
+
         private JwtEncoder jwtEncoder;
 
         /**
@@ -38,13 +49,31 @@ public class JWTService {
          * @return Une chaîne de caractères représentant le token JWT.
          */
         public String generateToken(User user) {
+                return generateToken(user, null);
+        }
+
+        /**
+         * Génère un token JWT pour un utilisateur donné, en y ajoutant les IDs des
+         * thèmes qu'il suit et la version de ses abonnements. Le fil d'actualité
+         * peut alors se passer de la lecture de l'utilisateur tant que ses
+         * abonnements n'ont pas changé.
+         *
+         * @param user     L'utilisateur pour lequel le token est généré.
+         * @param themeIds Les IDs des thèmes suivis, ou null pour ne pas les inclure.
+         * @return Une chaîne de caractères représentant le token JWT.
+         */
+        public String generateToken(User user, List<Long> themeIds) {
                 Instant now = Instant.now();
-                JwtClaimsSet claims = JwtClaimsSet.builder()
+                JwtClaimsSet.Builder builder = JwtClaimsSet.builder()
                                 .issuer("self") // Déclare que le token est émis par le système lui-même.
                                 .issuedAt(now) // Date et heure d'émission du token.
                                 .expiresAt(now.plus(1, ChronoUnit.DAYS)) // Expiration dans 1 jour.
-                                .subject(String.valueOf(user.getId())) // ID de l'utilisateur comme sujet du token.
-                                .build();
+                                .subject(String.valueOf(user.getId())); // ID de l'utilisateur comme sujet du token.
+                if (themeIds != null) {
+                        builder.claim(THEMES_CLAIM, themeIds) // Thèmes suivis à l'émission du token.
+                                        .claim(SUBSCRIPTION_VERSION_CLAIM, user.getSubscriptionVersion());
+                }
+                JwtClaimsSet claims = builder.build();
                 JwtEncoderParameters jwtEncoderParameters = JwtEncoderParameters
                                 .from(JwsHeader.with(MacAlgorithm.HS256).build(), claims);
                 return this.jwtEncoder.encode(jwtEncoderParameters).getTokenValue();
@@ -0,0 +1,101 @@
+package com.mdd.pocmdd.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Table bornée dont les entrées les moins récemment lues sont évincées au-delà
+ * de la capacité. Elle est protégée par un {@link ReentrantLock} plutôt que par
+ * un bloc {@code synchronized} : un thread virtuel qui attend le verrou libère
+ * son thread porteur au lieu de l'immobiliser.
+ *
+ * @param <K> le type des clés.
+ * @param <V> le type des valeurs.
+ */
+public class LruCache<K, V> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, V> entries;
+
+    /**
+     * @param maxEntries le nombre maximal d'entrées conservées.
+     */
+    public LruCache(int maxEntries) {
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public V get(K key) {
+        lock.lock();
+        try {
+            return entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V put(K key, V value) {
+        lock.lock();
+        try {
+            return entries.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V putIfAbsent(K key, V value) {
+        lock.lock();
+        try {
+            return entries.putIfAbsent(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        lock.lock();
+        try {
+            return entries.merge(key, value, remapping);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V remove(K key) {
+        lock.lock();
+        try {
+            return entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return une copie des valeurs, parcourable sans tenir le verrou.
+     */
+    public List<V> values() {
+        lock.lock();
+        try {
+            return new ArrayList<>(entries.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
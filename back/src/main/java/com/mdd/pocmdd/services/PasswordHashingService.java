@@ -0,0 +1,137 @@
+package com.mdd.pocmdd.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Service exécutant les calculs BCrypt (vérification et hachage des mots de
+ * passe) sur un pool de threads dédié et borné, plutôt que sur les threads de
+ * requête de Tomcat. Au-delà de la file d'attente configurée, les demandes sont
+ * refusées immédiatement par une {@link HashingOverloadedException} : une
+ * rafale de connexions ne peut donc pas monopoliser les threads qui servent le
+ * fil d'actualité. Les threads du pool restent des threads de plateforme en mode
+ * threads virtuels : le calcul est limité par le processeur, et le pool sert
+ * justement à le borner.
+ */
+@Log4j2
+@Service
+public class PasswordHashingService {
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    private final Timer waitTime;
+    private final Timer hashTime;
+    private final Counter rejections;
+
+    /**
+     * Constructeur pour injecter les dépendances et la configuration du pool.
+     *
+     * @param bCryptPasswordEncoder l'encodeur de mots de passe.
+     * @param meterRegistry         le registre des métriques du pool.
+     * @param threads               le nombre de threads de hachage (0 : un par
+     *                              cœur).
+     * @param queueCapacity         le nombre maximal de demandes en attente.
+     * @param retryAfterSeconds     le délai conseillé aux clients refusés.
+     */
+    public PasswordHashingService(BCryptPasswordEncoder bCryptPasswordEncoder, MeterRegistry meterRegistry,
+            @Value("${security.hashing.threads:0}") int threads,
+            @Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.waitTime = Timer.builder("mdd.hashing.wait")
+                .description("Attente d'une demande de hachage dans la file").register(meterRegistry);
+        this.hashTime = Timer.builder("mdd.hashing.duration")
+                .description("Durée d'un calcul BCrypt").register(meterRegistry);
+        this.rejections = Counter.builder("mdd.hashing.rejections")
+                .description("Demandes de hachage refusées, file pleine").register(meterRegistry);
+        Gauge.builder("mdd.hashing.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Demandes de hachage en attente").register(meterRegistry);
+        Gauge.builder("mdd.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Calculs BCrypt en cours").register(meterRegistry);
+        log.info("Pool de hachage des mots de passe : {} threads, file de {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Vérifie un mot de passe contre son hash.
+     *
+     * @param rawPassword     le mot de passe saisi.
+     * @param encodedPassword le hash enregistré.
+     * @return true si le mot de passe correspond.
+     * @throws HashingOverloadedException si le pool est saturé.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Calcule le hash d'un mot de passe avec le coût configuré.
+     *
+     * @param rawPassword le mot de passe à hacher.
+     * @return le hash BCrypt.
+     * @throws HashingOverloadedException si le pool est saturé.
+     */
+    public String encode(String rawPassword) {
+        return run(() -> bCryptPasswordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Soumet un calcul au pool et attend son résultat.
+     */
+    private <T> T run(Callable<T> hashing) {
+        long submittedAt = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                waitTime.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTime.recordCallable(hashing);
+            }).get();
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Pool de hachage saturé ({} demandes en attente)", executor.getQueue().size());
+            throw new HashingOverloadedException(retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hachage du mot de passe interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Échec du hachage du mot de passe", e.getCause());
+        }
+    }
+
+    /**
+     * Arrête le pool à l'arrêt de l'application.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
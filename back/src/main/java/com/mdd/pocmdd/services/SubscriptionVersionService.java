@@ -0,0 +1,94 @@
+package com.mdd.pocmdd.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.mdd.pocmdd.repository.UserRespository;
+
+/**
+ * Service connaissant la version courante des abonnements de chaque
+ * utilisateur. La version est incrémentée à chaque abonnement ou désabonnement
+ * et recopiée dans le JWT : tant que la version du token est la version
+ * courante, la liste des thèmes qu'il transporte est à jour et la base n'a pas
+ * besoin d'être interrogée.
+ * Les versions sont gardées en mémoire (nombre d'utilisateurs borné) comme un
+ * simple indice : au-delà d'une courte durée de validité, la version est relue
+ * en base. Une autre instance qui a validé un changement d'abonnements n'est
+ * donc crue à tort que pendant cette durée.
+ */
+@Service
+public class SubscriptionVersionService {
+
+    private final UserRespository userRepository;
+
+    /**
+     * Versions connues, indexées par ID d'utilisateur. Les utilisateurs les moins
+     * récemment vus sont évincés au-delà de la limite.
+     */
+    private final LruCache<Long, Version> versions;
+
+    /**
+     * Durée de validité d'une version lue en base, en nanosecondes.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Constructeur pour injecter les dépendances et la configuration du service.
+     *
+     * @param userRepository le référentiel des utilisateurs.
+     * @param maxUsers       le nombre maximal d'utilisateurs gardés en mémoire.
+     * @param ttlMillis      la durée pendant laquelle une version connue est crue
+     *                       sans être relue en base.
+     */
+    public SubscriptionVersionService(UserRespository userRepository,
+            @Value("${mdd.subscriptions.max-users:10000}") int maxUsers,
+            @Value("${mdd.subscriptions.version-ttl-ms:5000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.versions = new LruCache<>(maxUsers);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Indique si une version d'abonnements est la version courante d'un
+     * utilisateur.
+     *
+     * @param userId  l'ID de l'utilisateur.
+     * @param version la version lue dans le token.
+     * @return true si la version est à jour.
+     */
+    public boolean isCurrent(Long userId, long version) {
+        Version current = versions.get(userId);
+        if (current == null || System.nanoTime() - current.readAt() > ttlNanos) {
+            Long stored = userRepository.findSubscriptionVersionById(userId).orElse(null);
+            if (stored == null) {
+                return false;
+            }
+            current = new Version(stored, System.nanoTime());
+            versions.merge(userId, current, SubscriptionVersionService::newest);
+        }
+        return current.value() == version;
+    }
+
+    /**
+     * Enregistre la nouvelle version des abonnements d'un utilisateur.
+     *
+     * @param userId  l'ID de l'utilisateur.
+     * @param version la nouvelle version.
+     */
+    public void update(Long userId, long version) {
+        versions.merge(userId, new Version(version, System.nanoTime()), SubscriptionVersionService::newest);
+    }
+
+    private static Version newest(Version a, Version b) {
+        return a.value() > b.value() ? a : b;
+    }
+
+    /**
+     * Version des abonnements d'un utilisateur et date (System.nanoTime) à
+     * laquelle elle a été lue ou écrite.
+     */
+    private record Version(long value, long readAt) {
+    }
+}
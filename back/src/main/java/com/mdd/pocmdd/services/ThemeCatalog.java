@@ -0,0 +1,61 @@
+package com.mdd.pocmdd.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mdd.pocmdd.dto.ThemeDTO;
+
+import lombok.Getter;
+
+/**
+ * Instantané immuable du catalogue des thèmes, remplacé en bloc à chaque
+ * modification. La version est une empreinte du contenu (ID, titre et
+ * description de chaque thème) : deux instances, ou une instance avant et après
+ * un redémarrage, donnent la même version pour le même catalogue.
+ */
+@Getter
+public class ThemeCatalog {
+
+    private final List<ThemeDTO> themes;
+    private final Map<Long, ThemeDTO> themesById;
+    private final String version;
+
+    public ThemeCatalog(List<ThemeDTO> themes) {
+        Map<Long, ThemeDTO> byId = new LinkedHashMap<>();
+        for (ThemeDTO theme : themes) {
+            byId.put(theme.getId(), theme);
+        }
+        this.themes = List.copyOf(themes);
+        this.themesById = Collections.unmodifiableMap(byId);
+        this.version = digest(themes);
+    }
+
+    private static String digest(List<ThemeDTO> themes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // Ordre des ID : l'empreinte ne dépend pas de l'ordre de lecture en base
+            themes.stream().sorted(Comparator.comparing(ThemeDTO::getId)).forEach(theme -> {
+                // Longueur avant chaque champ : pas d'ambiguïté sur les séparateurs
+                update(digest, String.valueOf(theme.getId()));
+                update(digest, theme.getTitle());
+                update(digest, theme.getDescription());
+            });
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        digest.update((bytes.length + ":").getBytes(StandardCharsets.US_ASCII));
+        digest.update(bytes);
+    }
+}
@@ -1,17 +1,27 @@
 package com.mdd.pocmdd.services;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import com.mdd.pocmdd.config.ReplicaRoutingDataSource;
 import com.mdd.pocmdd.dto.ThemeDTO;
 import com.mdd.pocmdd.mapper.ThemeMapper;
 import com.mdd.pocmdd.models.Theme;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.log4j.Log4j2;
 import com.mdd.pocmdd.repository.ThemeRepository;
-import java.util.stream.Collectors;
 
 /**
  * Service pour la gestion des thèmes.
  * Fournit des méthodes pour récupérer, créer et manipuler les thèmes.
+ * Le catalogue complet est gardé en mémoire sous forme d'instantané immuable
+ * ({@link ThemeCatalog}) : les lectures ne sollicitent pas la base de données,
+ * et chaque sauvegarde reconstruit l'instantané.
  */
 @Log4j2
 @Service
@@ -20,28 +30,60 @@ public class ThemeService {
     private final ThemeRepository themeRepository;
     private final ThemeMapper themeMapper;
 
+    /**
+     * Instantané courant du catalogue (null tant qu'il n'a pas été chargé).
+     */
+    private final AtomicReference<ThemeCatalog> catalog = new AtomicReference<>();
+
+    /**
+     * Sérialise les reconstructions du catalogue. Un verrou explicite plutôt qu'un
+     * bloc synchronized : la reconstruction interroge la base, et un thread
+     * virtuel ne doit pas bloquer son thread porteur pendant cet appel.
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter cacheRebuilds;
+
     /**
      * Constructeur pour injecter les dépendances nécessaires.
      *
      * @param themeRepository le référentiel pour les opérations sur les thèmes.
      * @param themeMapper     le mapper pour convertir entre les entités et les DTO.
+     * @param meterRegistry   le registre des métriques du cache.
      */
-    public ThemeService(ThemeRepository themeRepository, ThemeMapper themeMapper) {
+    public ThemeService(ThemeRepository themeRepository, ThemeMapper themeMapper, MeterRegistry meterRegistry) {
         this.themeRepository = themeRepository;
         this.themeMapper = themeMapper;
+        this.cacheHits = Counter.builder("mdd.themes.cache.requests").tag("result", "hit")
+                .description("Lectures du catalogue servies depuis la mémoire").register(meterRegistry);
+        this.cacheMisses = Counter.builder("mdd.themes.cache.requests").tag("result", "miss")
+                .description("Lectures du catalogue ayant nécessité la base de données").register(meterRegistry);
+        this.cacheRebuilds = Counter.builder("mdd.themes.cache.rebuilds")
+                .description("Reconstructions du catalogue des thèmes").register(meterRegistry);
+        Gauge.builder("mdd.themes.cache.size", catalog, ref -> ref.get() == null ? 0 : ref.get().getThemes().size())
+                .description("Nombre de thèmes dans le catalogue en mémoire").register(meterRegistry);
+    }
+
+    /**
+     * Charge le catalogue au démarrage pour que la première requête ne touche pas
+     * la base.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildCatalog();
     }
 
     /**
      * Récupère tous les thèmes disponibles.
      *
-     * @return une liste de {@link ThemeDTO} représentant tous les thèmes.
+     * @return une liste non modifiable de {@link ThemeDTO} représentant tous les
+     *         thèmes.
      */
     public List<ThemeDTO> getAllThemes() {
         log.info("Requête pour récupérer tous les thèmes");
-        List<Theme> themes = themeRepository.findAll();
-        return themes.stream()
-                .map(themeMapper::toDto)
-                .collect(Collectors.toList());
+        return getCatalog().getThemes();
     }
 
     /**
@@ -53,9 +95,33 @@ public class ThemeService {
      */
     public ThemeDTO getThemeById(Long id) {
         log.info("Requête pour récupérer un thème par ID : {}", id);
-        Theme theme = themeRepository.findById(id)
+        ThemeCatalog current = catalog.get();
+        ThemeDTO theme = current == null ? null : current.getThemesById().get(id);
+        if (theme != null) {
+            cacheHits.increment();
+            return theme;
+        }
+        // Catalogue absent ou thème inconnu : on vérifie en base avant de conclure
+        cacheMisses.increment();
+        ReplicaRoutingDataSource.onPrimary(() -> themeRepository.findById(id))
                 .orElseThrow(() -> new IllegalArgumentException("Thème non trouvé"));
-        return themeMapper.toDto(theme);
+        return rebuildCatalog().getThemesById().get(id);
+    }
+
+    /**
+     * Retourne l'instantané courant du catalogue des thèmes, en le chargeant si
+     * nécessaire.
+     *
+     * @return le catalogue des thèmes.
+     */
+    public ThemeCatalog getCatalog() {
+        ThemeCatalog current = catalog.get();
+        if (current != null) {
+            cacheHits.increment();
+            return current;
+        }
+        cacheMisses.increment();
+        return rebuildCatalog();
     }
 
     /**
@@ -68,6 +134,28 @@ public class ThemeService {
         log.info("Requête pour sauvegarder un thème : {}", themeDTO);
         Theme theme = themeMapper.toEntity(themeDTO);
         theme = themeRepository.save(theme);
+        rebuildCatalog();
         return themeMapper.toDto(theme);
     }
+
+    /**
+     * Recharge le catalogue depuis la base et remplace l'instantané courant.
+     * Les reconstructions sont sérialisées pour qu'un instantané plus ancien ne
+     * remplace pas un plus récent. Le catalogue est partagé par tous les utilisateurs et
+     * reconstruit juste après chaque sauvegarde : il est lu sur la base
+     * principale, jamais sur un réplica en retard.
+     */
+    private ThemeCatalog rebuildCatalog() {
+        rebuildLock.lock();
+        try {
+            List<ThemeDTO> themes = themeMapper.toDto(ReplicaRoutingDataSource.onPrimary(themeRepository::findAll));
+            ThemeCatalog rebuilt = new ThemeCatalog(themes);
+            catalog.set(rebuilt);
+            cacheRebuilds.increment();
+            log.debug("Catalogue des thèmes reconstruit, version {}", rebuilt.getVersion());
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
 }
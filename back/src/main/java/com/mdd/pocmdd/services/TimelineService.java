@@ -0,0 +1,356 @@
+package com.mdd.pocmdd.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.mdd.pocmdd.dto.TimelineEntry;
+import com.mdd.pocmdd.repository.ArticleRepository;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Service gérant le fil d'actualité matérialisé de chaque utilisateur.
+ * Les fils sont conservés en mémoire (nombre d'utilisateurs et nombre
+ * d'entrées par utilisateur bornés) et alimentés à l'écriture : chaque nouvel
+ * article est poussé dans le fil des abonnés de son thème. Un utilisateur
+ * absent de la mémoire (fil « froid ») est rechargé depuis la base de données à
+ * sa première lecture.
+ */
+@Log4j2
+@Service
+public class TimelineService {
+
+    /**
+     * Ordre du fil : du plus récent au plus ancien, puis par ID décroissant.
+     */
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .<TimelineEntry, LocalDateTime>comparing(TimelineEntry::getCreatedAt).reversed()
+            .thenComparing(TimelineEntry::getArticleId, Comparator.reverseOrder());
+
+    private final ArticleRepository articleRepository;
+
+    /**
+     * Nombre maximal d'entrées conservées en mémoire par utilisateur.
+     */
+    private final int maxEntries;
+
+    /**
+     * Fils en mémoire, indexés par ID d'utilisateur. Les utilisateurs les moins
+     * récemment lus sont évincés au-delà de la limite.
+     */
+    private final LruCache<Long, Timeline> timelines;
+
+    /**
+     * Constructeur pour injecter les dépendances et la configuration du service.
+     *
+     * @param articleRepository le référentiel des articles.
+     * @param maxEntries        le nombre maximal d'entrées par utilisateur.
+     * @param maxUsers          le nombre maximal d'utilisateurs gardés en mémoire.
+     */
+    public TimelineService(ArticleRepository articleRepository,
+            @Value("${mdd.timeline.max-entries:500}") int maxEntries,
+            @Value("${mdd.timeline.max-users:10000}") int maxUsers) {
+        this.articleRepository = articleRepository;
+        this.maxEntries = maxEntries;
+        this.timelines = new LruCache<>(maxUsers);
+    }
+
+    /**
+     * Lit une page du fil d'un utilisateur.
+     * La page est servie depuis la mémoire ; si le fil en mémoire a été tronqué
+     * et ne suffit pas à remplir la page, le reste est lu en base à partir de la
+     * dernière position servie. Un fil en cours de chargement ou de complément
+     * est lu entièrement en base.
+     *
+     * @param userId   l'ID de l'utilisateur.
+     * @param themeIds les IDs des thèmes auxquels l'utilisateur est abonné.
+     * @param cursor   la position à partir de laquelle lire, ou null pour la tête
+     *                 du fil.
+     * @param limit    le nombre maximal d'entrées à renvoyer.
+     * @return les entrées de la page, de la plus récente à la plus ancienne.
+     */
+    public List<TimelineEntry> readPage(Long userId, List<Long> themeIds, FeedCursor cursor, int limit) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline == null || !timeline.themeIds.equals(new HashSet<>(themeIds))) {
+            timeline = load(userId, themeIds);
+        }
+
+        // État lu avant les entrées : un fil complété pendant le parcours n'est pas
+        // pris pour complet
+        boolean complete = timeline.complete;
+        List<TimelineEntry> page = new ArrayList<>(limit);
+        if (!timeline.loading) {
+            NavigableSet<TimelineEntry> from = cursor == null ? timeline.entries
+                    : timeline.entries.tailSet(new TimelineEntry(cursor.getId(), cursor.getCreatedAt(), null), false);
+            for (TimelineEntry entry : from) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                page.add(entry);
+            }
+            if (timeline.loading) {
+                // Complément commencé pendant le parcours : la page peut avoir des trous
+                page.clear();
+                complete = false;
+            }
+        }
+
+        if (page.size() < limit && !complete) {
+            // Le fil en mémoire est tronqué : on complète la page depuis la base
+            LocalDateTime createdAt = cursor == null ? null : cursor.getCreatedAt();
+            Long id = cursor == null ? null : cursor.getId();
+            if (!page.isEmpty()) {
+                TimelineEntry last = page.get(page.size() - 1);
+                createdAt = last.getCreatedAt();
+                id = last.getArticleId();
+            }
+            PageRequest remaining = PageRequest.of(0, limit - page.size());
+            page.addAll(createdAt == null ? articleRepository.findTimelineEntries(themeIds, remaining)
+                    : articleRepository.findTimelineEntriesAfter(themeIds, createdAt, id, remaining));
+        }
+        return page;
+    }
+
+    /**
+     * Pousse un nouvel article dans le fil en mémoire de chaque abonné de son
+     * thème. Les fils froids ne sont pas touchés : ils liront l'article en base
+     * lors de leur chargement. Un article daté d'avant la fin d'un fil tronqué
+     * (import) n'y est pas ajouté : il est lu en base après les entrées en
+     * mémoire.
+     *
+     * @param entry l'entrée correspondant au nouvel article.
+     */
+    public void publish(TimelineEntry entry) {
+        for (Timeline timeline : timelines.values()) {
+            if (timeline.themeIds.contains(entry.getThemeId())) {
+                timeline.publish(entry, maxEntries);
+            }
+        }
+    }
+
+    /**
+     * Complète le fil en mémoire d'un utilisateur avec les articles récents des
+     * thèmes auxquels il vient de s'abonner, lus en une seule requête. Pendant la
+     * requête, le fil est marqué en cours de chargement : il est lu en base et les
+     * articles publiés sont retenus. Un fil tronqué est abandonné : il sera
+     * rechargé à sa prochaine lecture.
+     *
+     * @param userId   l'ID de l'utilisateur.
+     * @param themeIds les IDs des thèmes.
+     */
+    public void onSubscribed(Long userId, Collection<Long> themeIds) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline == null) {
+            return;
+        }
+        if (!timeline.startBackfill(themeIds)) {
+            // Fil tronqué : les articles des nouveaux thèmes plus anciens que la fin
+            // du fil laisseraient un trou que la lecture en base ne comblerait pas
+            timelines.remove(userId);
+            return;
+        }
+        List<TimelineEntry> backfill;
+        try {
+            backfill = articleRepository.findTimelineEntries(themeIds, PageRequest.of(0, maxEntries));
+        } catch (RuntimeException e) {
+            timelines.remove(userId);
+            throw e;
+        }
+        timeline.loaded(backfill, backfill.size() < maxEntries, maxEntries);
+    }
+
+    /**
+     * Retire du fil en mémoire d'un utilisateur les articles des thèmes dont il
+     * vient de se désabonner. Un fil tronqué est abandonné : il sera rechargé à
+     * sa prochaine lecture.
+     *
+     * @param userId   l'ID de l'utilisateur.
+     * @param themeIds les IDs des thèmes.
+     */
+    public void onUnsubscribed(Long userId, Collection<Long> themeIds) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline == null) {
+            return;
+        }
+        timeline.themeIds.removeAll(themeIds);
+        if (!timeline.removeThemes(themeIds)) {
+            timelines.remove(userId);
+        }
+    }
+
+    /**
+     * Charge depuis la base les entrées les plus récentes du fil d'un utilisateur
+     * et les garde en mémoire. Le fil est enregistré avant la requête : les
+     * articles publiés pendant la lecture sont retenus et ajoutés ensuite.
+     */
+    private Timeline load(Long userId, Collection<Long> themeIds) {
+        Timeline timeline = new Timeline(themeIds);
+        timelines.put(userId, timeline);
+        List<TimelineEntry> entries;
+        try {
+            entries = themeIds.isEmpty() ? List.of()
+                    : articleRepository.findTimelineEntries(themeIds, PageRequest.of(0, maxEntries));
+        } catch (RuntimeException e) {
+            timelines.remove(userId);
+            throw e;
+        }
+        timeline.loaded(entries, entries.size() < maxEntries, maxEntries);
+        log.debug("Fil de l'utilisateur {} chargé depuis la base", userId);
+        return timeline;
+    }
+
+    /**
+     * Fil en mémoire d'un utilisateur. Les lectures parcourent les entrées sans
+     * verrou ; les modifications sont faites sous le verrou du fil, pour que les
+     * entrées en mémoire restent toujours les plus récentes du fil.
+     */
+    private static final class Timeline {
+
+        private final NavigableSet<TimelineEntry> entries = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+        private final Set<Long> themeIds = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Articles publiés pendant le chargement du fil, ajoutés à la fin de
+         * celui-ci.
+         */
+        private final List<TimelineEntry> pending = new ArrayList<>();
+
+        private int size;
+
+        /**
+         * Vrai pendant le chargement ou le complément du fil : les lectures passent
+         * par la base et les publications sont retenues.
+         */
+        private volatile boolean loading = true;
+
+        /**
+         * Vrai si toutes les entrées du fil sont en mémoire (aucune n'a été évincée).
+         */
+        private volatile boolean complete;
+
+        private Timeline(Collection<Long> themeIds) {
+            this.themeIds.addAll(themeIds);
+        }
+
+        /**
+         * Termine le chargement ou le complément : ajoute les entrées lues en base
+         * (les plus récentes, dans l'ordre du fil), puis les articles publiés
+         * pendant la lecture.
+         *
+         * @param allRead vrai si la requête a renvoyé toutes les entrées.
+         */
+        private void loaded(Collection<TimelineEntry> newEntries, boolean allRead, int maxEntries) {
+            lock.lock();
+            try {
+                boolean evicted = false;
+                for (TimelineEntry entry : newEntries) {
+                    evicted |= add(entry, maxEntries);
+                }
+                complete = allRead && !evicted;
+                loading = false;
+                for (TimelineEntry entry : pending) {
+                    publishLocked(entry, maxEntries);
+                }
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Ajoute de nouveaux thèmes à un fil complet et le repasse en cours de
+         * chargement, jusqu'à l'appel de {@link #loaded} avec leurs entrées.
+         *
+         * @return faux si le fil est tronqué ou en cours de chargement, et n'a pas
+         *         été modifié.
+         */
+        private boolean startBackfill(Collection<Long> newThemeIds) {
+            lock.lock();
+            try {
+                if (loading || !complete) {
+                    return false;
+                }
+                loading = true;
+                complete = false;
+                themeIds.addAll(newThemeIds);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void publish(TimelineEntry entry, int maxEntries) {
+            lock.lock();
+            try {
+                if (loading) {
+                    pending.add(entry);
+                } else {
+                    publishLocked(entry, maxEntries);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void publishLocked(TimelineEntry entry, int maxEntries) {
+            // Dans un fil tronqué, un article plus ancien que la fin du fil (import
+            // daté) est lu en base après elle : l'ajouter laisserait un trou
+            if (!complete && (entries.isEmpty() || NEWEST_FIRST.compare(entry, entries.last()) > 0)) {
+                return;
+            }
+            add(entry, maxEntries);
+        }
+
+        /**
+         * @return vrai si des entrées ont été évincées.
+         */
+        private boolean add(TimelineEntry entry, int maxEntries) {
+            if (entries.add(entry) && ++size > maxEntries) {
+                // Évince les entrées les plus anciennes : elles restent lisibles en base
+                while (size > maxEntries && entries.pollLast() != null) {
+                    size--;
+                }
+                complete = false;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return faux si le fil est tronqué et n'a pas été modifié.
+         */
+        private boolean removeThemes(Collection<Long> themeIds) {
+            lock.lock();
+            try {
+                if (loading || !complete) {
+                    return false;
+                }
+                Iterator<TimelineEntry> iterator = entries.iterator();
+                while (iterator.hasNext()) {
+                    if (themeIds.contains(iterator.next().getThemeId())) {
+                        iterator.remove();
+                        size--;
+                    }
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
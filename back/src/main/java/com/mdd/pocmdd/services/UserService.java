@@ -5,16 +5,20 @@ import lombok.extern.log4j.Log4j2;
 import com.mdd.pocmdd.dto.RegisterDTO;
 import com.mdd.pocmdd.dto.ThemeDTO;
 import com.mdd.pocmdd.dto.UserDTO;
-import com.mdd.pocmdd.mapper.UserMapper;
 import com.mdd.pocmdd.models.User;
 import com.mdd.pocmdd.payload.MeDto;
 import java.util.ArrayList;
 import java.util.List;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
-import com.mdd.pocmdd.repository.ThemeRepository;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
 import com.mdd.pocmdd.models.Theme;
+import java.util.Collection;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Service pour la gestion des utilisateurs.
@@ -23,40 +27,62 @@ import com.mdd.pocmdd.models.Theme;
 @Service
 public class UserService {
 
+    /**
+     * Format d'un hash BCrypt, dont le premier groupe est le coût.
+     */
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[abxy]?\\$(\\d{2})\\$.{53}");
+
     /**
      * Dépôt pour accéder aux données des utilisateurs.
      */
     private UserRespository userRepository;
 
     /**
-     * Dépôt pour accéder aux données des thèmes.
+     * Service de hachage des mots de passe, exécuté sur un pool borné.
      */
-    private ThemeRepository themeRepository;
+    private PasswordHashingService passwordHashingService;
 
     /**
-     * Mapper pour convertir les entités utilisateur en DTO et vice versa.
+     * Service des fils d'actualité matérialisés, tenu à jour lors des abonnements.
      */
-    private UserMapper userMapper;
+    private TimelineService timelineService;
 
     /**
-     * Encodeur pour sécuriser les mots de passe.
+     * Service des versions d'abonnements, tenu à jour lors des abonnements.
      */
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private SubscriptionVersionService subscriptionVersionService;
+
+    /**
+     * Service de diffusion des nouveaux articles, dont les connexions suivent
+     * les abonnements.
+     */
+    private ArticleStreamService articleStreamService;
+
+    /**
+     * Coût BCrypt configuré : les hashs d'un autre coût sont recalculés à la
+     * connexion.
+     */
+    private int bcryptStrength;
 
     /**
      * Constructeur pour injecter les dépendances du service.
      *
-     * @param userRepository        Le dépôt des utilisateurs.
-     * @param themeRepository       Le dépôt des thèmes.
-     * @param userMapper            Le mapper des utilisateurs.
-     * @param bCryptPasswordEncoder L'encodeur de mots de passe.
+     * @param userRepository             Le dépôt des utilisateurs.
+     * @param passwordHashingService     Le service de hachage des mots de passe.
+     * @param timelineService            Le service des fils d'actualité.
+     * @param subscriptionVersionService Le service des versions d'abonnements.
+     * @param articleStreamService       Le service de diffusion des articles.
+     * @param bcryptStrength             Le coût BCrypt configuré.
      */
-    public UserService(UserRespository userRepository, ThemeRepository themeRepository, UserMapper userMapper,
-            BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public UserService(UserRespository userRepository, PasswordHashingService passwordHashingService, TimelineService timelineService,
+            SubscriptionVersionService subscriptionVersionService, ArticleStreamService articleStreamService,
+            @Value("${security.bcrypt.strength:10}") int bcryptStrength) {
         this.userRepository = userRepository;
-        this.themeRepository = themeRepository;
-        this.userMapper = userMapper;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.timelineService = timelineService;
+        this.subscriptionVersionService = subscriptionVersionService;
+        this.articleStreamService = articleStreamService;
+        this.bcryptStrength = bcryptStrength;
     }
 
     /**
@@ -79,6 +105,47 @@ public class UserService {
         return userRepository.findByEmail(email);
     }
 
+    /**
+     * Recherche un utilisateur par son email ou son nom d'utilisateur, en une
+     * seule requête. Une correspondance sur l'email est prioritaire.
+     *
+     * @param login L'email ou le nom d'utilisateur saisi à la connexion.
+     * @return L'utilisateur correspondant ou null s'il n'existe pas.
+     */
+    public User findByLogin(String login) {
+        List<User> candidates = userRepository.findByEmailOrUsername(login, login);
+        return candidates.stream()
+                .filter(user -> login.equals(user.getEmail()))
+                .findFirst()
+                .orElse(candidates.isEmpty() ? null : candidates.get(0));
+    }
+
+    /**
+     * Vérifie le mot de passe d'un utilisateur. Le hash n'est calculé qu'une fois
+     * ; si le mot de passe est correct mais que son hash a été produit avec un
+     * autre coût que celui configuré, il est recalculé et enregistré. Aucune
+     * transaction n'est ouverte pendant le calcul du hash.
+     *
+     * @param user        L'utilisateur qui se connecte.
+     * @param rawPassword Le mot de passe saisi.
+     * @return true si le mot de passe est correct.
+     * @throws HashingOverloadedException si le pool de hachage est saturé.
+     */
+    public boolean checkPassword(User user, String rawPassword) {
+        if (!passwordHashingService.matches(rawPassword, user.getPassword())) {
+            return false;
+        }
+        Matcher hash = BCRYPT_HASH.matcher(user.getPassword());
+        if (hash.matches() && Integer.parseInt(hash.group(1)) != bcryptStrength) {
+            log.info("Mise à jour du coût BCrypt de l'utilisateur {} ({} -> {})", user.getId(), hash.group(1),
+                    bcryptStrength);
+            String rehashed = passwordHashingService.encode(rawPassword);
+            userRepository.updatePassword(user.getId(), rehashed);
+            user.setPassword(rehashed);
+        }
+        return true;
+    }
+
     /**
      * Enregistre un nouvel utilisateur.
      *
@@ -86,6 +153,7 @@ public class UserService {
      * @throws IllegalArgumentException Si le nom d'utilisateur ou l'email est déjà
      *                                  utilisé ou si des champs obligatoires sont
      *                                  vides.
+     * @throws HashingOverloadedException Si le pool de hachage est saturé.
      */
     public void registerUser(RegisterDTO registerDTO) {
         if (userRepository.findByUsername(registerDTO.getUsername()) != null) {
@@ -105,7 +173,7 @@ public class UserService {
         user.setUsername(registerDTO.getUsername());
         user.setEmail(registerDTO.getEmail());
         user.setRole("User");
-        user.setPassword(bCryptPasswordEncoder.encode(registerDTO.getPassword()));
+        user.setPassword(passwordHashingService.encode(registerDTO.getPassword()));
 
         userRepository.save(user);
     }
@@ -121,11 +189,15 @@ public class UserService {
 
     /**
      * Recherche un utilisateur par son identifiant et retourne ses données sous
-     * forme de DTO.
+     * forme de DTO. L'utilisateur, ses abonnements et les thèmes sont lus depuis
+     * le cache de second niveau : seule la première lecture touche la base. Une
+     * lecture servie par le réplica n'alimente pas ce cache (voir
+     * ReplicaRoutingDataSource).
      *
      * @param id L'identifiant de l'utilisateur.
      * @return Le DTO de l'utilisateur ou null s'il n'existe pas.
      */
+    @Transactional(readOnly = true)
     public UserDTO findById(Long id) {
         Optional<User> user = userRepository.findById(id);
         UserDTO userDTO = null;
@@ -144,53 +216,129 @@ public class UserService {
     }
 
     /**
-     * Abonne un utilisateur à un thème.
+     * Récupère les IDs des thèmes suivis par un utilisateur, en une requête sur
+     * la table d'abonnement.
      *
-     * @param id      L'identifiant de l'utilisateur.
-     * @param themeId L'identifiant du thème.
-     * @return Le DTO de l'utilisateur mis à jour.
-     * @throws IllegalArgumentException Si l'utilisateur ou le thème n'existe pas,
-     *                                  ou si l'utilisateur est déjà abonné au
-     *                                  thème.
-     */
-    public UserDTO subscribeUserToTheme(Long id, Long themeId) {
-        Optional<User> user = userRepository.findById(id);
-        if (user.isEmpty()) {
-            throw new IllegalArgumentException("Utilisateur non trouvé");
+     * @param userId L'identifiant de l'utilisateur.
+     * @return Les IDs des thèmes suivis.
+     */
+    public List<Long> getSubscribedThemeIds(Long userId) {
+        return userRepository.findSubscribedThemeIdsById(userId);
+    }
+
+    /**
+     * Récupère les IDs des thèmes suivis par un utilisateur à partir de ceux
+     * transportés par son token. La base n'est interrogée que si le token n'en
+     * contient pas ou si ses abonnements ont changé depuis son émission.
+     *
+     * @param userId          L'identifiant de l'utilisateur.
+     * @param claimedThemeIds Les IDs des thèmes lus dans le token, ou null.
+     * @param claimedVersion  La version des abonnements lue dans le token, ou
+     *                        null.
+     * @return Les IDs des thèmes suivis.
+     */
+    public List<Long> getSubscribedThemeIds(Long userId, List<Long> claimedThemeIds, Long claimedVersion) {
+        if (claimedThemeIds != null && claimedVersion != null
+                && subscriptionVersionService.isCurrent(userId, claimedVersion)) {
+            return claimedThemeIds;
         }
-        Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new IllegalArgumentException("Thème non trouvé"));
-        if (user.get().getSubscribedThemes().contains(theme)) {
-            throw new IllegalArgumentException("Utilisateur déjà abonné à ce thème");
+        log.debug("Abonnements du token de l'utilisateur {} périmés, lecture en base", userId);
+        return getSubscribedThemeIds(userId);
+    }
+
+    /**
+     * Abonne un utilisateur à des thèmes, directement dans la table
+     * d'abonnement : une seule requête insère les abonnements manquants, les
+     * thèmes déjà suivis ou inexistants étant ignorés (opération idempotente).
+     * L'utilisateur est verrouillé avant l'insertion : deux demandes
+     * simultanées (double clic) s'exécutent l'une après l'autre, la seconde
+     * n'ajoutant rien. Si des abonnements ont été ajoutés, la version des
+     * abonnements est incrémentée dans la même transaction, pour invalider les
+     * thèmes transportés par les tokens déjà émis. Un changement coûte trois
+     * requêtes (verrou, insertion, version), une demande sans effet deux.
+     *
+     * @param userId   L'identifiant de l'utilisateur.
+     * @param themeIds Les identifiants des thèmes.
+     * @return Le nombre d'abonnements ajoutés.
+     */
+    @Transactional
+    public int subscribeUserToThemes(Long userId, Collection<Long> themeIds) {
+        if (themeIds.isEmpty()) {
+            return 0;
         }
-        user.get().getSubscribedThemes().add(theme);
-        userRepository.save(user.get());
-        return userMapper.toDto(user.get());
+        User user = lockUser(userId);
+        int inserted = userRepository.insertSubscriptions(userId, themeIds);
+        if (inserted > 0) {
+            long version = bumpSubscriptionVersion(user);
+            afterCommit(() -> {
+                subscriptionVersionService.update(userId, version);
+                timelineService.onSubscribed(userId, themeIds);
+                articleStreamService.onSubscribed(userId, themeIds);
+            });
+        }
+        return inserted;
     }
 
     /**
-     * Désabonne un utilisateur d'un thème.
+     * Désabonne un utilisateur de thèmes, en une seule requête sur la table
+     * d'abonnement ; les thèmes non suivis sont ignorés (opération idempotente).
+     * L'utilisateur est verrouillé avant la suppression. Si des abonnements ont
+     * été retirés, la version des abonnements est incrémentée dans la même
+     * transaction.
      *
-     * @param userId  L'identifiant de l'utilisateur.
-     * @param themeId L'identifiant du thème.
-     * @return Le DTO de l'utilisateur mis à jour.
-     * @throws IllegalArgumentException Si l'utilisateur ou le thème n'existe pas,
-     *                                  ou si l'utilisateur n'est pas abonné au
-     *                                  thème.
+     * @param userId   L'identifiant de l'utilisateur.
+     * @param themeIds Les identifiants des thèmes.
+     * @return Le nombre d'abonnements retirés.
      */
-    public UserDTO unsubscribeUserFromTheme(long userId, Long themeId) {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
-            throw new IllegalArgumentException("Utilisateur non trouvé");
+    @Transactional
+    public int unsubscribeUserFromThemes(Long userId, Collection<Long> themeIds) {
+        if (themeIds.isEmpty()) {
+            return 0;
         }
-        Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new IllegalArgumentException("Thème non trouvé"));
-        if (!user.get().getSubscribedThemes().contains(theme)) {
-            throw new IllegalArgumentException("Utilisateur non abonné à ce thème");
+        User user = lockUser(userId);
+        int deleted = userRepository.deleteSubscriptions(userId, themeIds);
+        if (deleted > 0) {
+            long version = bumpSubscriptionVersion(user);
+            afterCommit(() -> {
+                subscriptionVersionService.update(userId, version);
+                timelineService.onUnsubscribed(userId, themeIds);
+                articleStreamService.onUnsubscribed(userId, themeIds);
+            });
         }
-        user.get().getSubscribedThemes().remove(theme);
-        userRepository.save(user.get());
-        return userMapper.toDto(user.get());
+        return deleted;
+    }
+
+    /**
+     * Lit l'utilisateur avec un verrou en écriture gardé jusqu'à la fin de la
+     * transaction : les modifications concurrentes de ses abonnements sont
+     * sérialisées et produisent des versions distinctes.
+     */
+    private User lockUser(Long userId) {
+        return userRepository.findForUpdateById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
+    }
+
+    /**
+     * Incrémente la version des abonnements d'un utilisateur verrouillé et
+     * renvoie la nouvelle version. La mise à jour porte sur l'entité, ce qui
+     * n'évince que son entrée du cache de second niveau.
+     */
+    private long bumpSubscriptionVersion(User user) {
+        user.setSubscriptionVersion(user.getSubscriptionVersion() + 1);
+        return user.getSubscriptionVersion();
+    }
+
+    /**
+     * Exécute une action une fois la transaction courante validée : les caches
+     * en mémoire ne doivent pas refléter une modification annulée.
+     */
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
@@ -202,8 +350,9 @@ public class UserService {
      * @throws IllegalArgumentException Si le nom d'utilisateur ou l'email est déjà
      *                                  utilisé.
      */
+    @Transactional
     public MeDto updateUser(Long userId, MeDto meDTO) {
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithSubscribedThemesById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
 
         boolean isUpdated = false;
@@ -0,0 +1,83 @@
+package com.mdd.pocmdd.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.mdd.pocmdd.config.ReplicaRoutingDataSource.Target;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Vérifie le choix de la base de chaque connexion selon le mode de la
+ * transaction et les écritures récentes de l'utilisateur.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(60_000, new SimpleMeterRegistry());
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		TransactionSynchronizationManager.setCurrentTransactionName(null);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void readOnlyTransactionsReadTheReplica() {
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.PRIMARY);
+
+		readOnlyService();
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.REPLICA);
+		assertThat(ReplicaRoutingDataSource.onPrimary(routing::determineCurrentLookupKey)).isEqualTo(Target.PRIMARY);
+	}
+
+	@Test
+	void springDataTransactionsReadThePrimary() {
+		// findById, existsById... appelés par un chemin d'écriture hors transaction de service
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager
+				.setCurrentTransactionName("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.PRIMARY);
+
+		TransactionSynchronizationManager.setCurrentTransactionName(null);
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.PRIMARY);
+	}
+
+	@Test
+	void writerReadsThePrimaryAfterCommit() {
+		authenticate("42");
+		TransactionSynchronizationManager.initSynchronization();
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.PRIMARY);
+
+		// Avant la validation, les lectures de l'utilisateur restent sur le réplica
+		readOnlyService();
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.REPLICA);
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		TransactionSynchronizationManager.clearSynchronization();
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.PRIMARY);
+
+		// Les autres utilisateurs lisent toujours le réplica
+		authenticate("43");
+		assertThat(routing.determineCurrentLookupKey()).isEqualTo(Target.REPLICA);
+	}
+
+	private void readOnlyService() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager
+				.setCurrentTransactionName(ReplicaRoutingDataSource.REPLICA_TRANSACTIONS + "ArticleService.getFeed");
+	}
+
+	private void authenticate(String userId) {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(userId, null, "USER"));
+	}
+}
@@ -0,0 +1,115 @@
+package com.mdd.pocmdd.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.mdd.pocmdd.dto.ArticleDTO;
+import com.mdd.pocmdd.dto.ThemeDTO;
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.payload.CommentPayload;
+import com.mdd.pocmdd.repository.UserRespository;
+import com.mdd.pocmdd.services.ArticleService;
+import com.mdd.pocmdd.services.CommentService;
+import com.mdd.pocmdd.services.ThemeService;
+import com.mdd.pocmdd.services.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Fait passer les chemins d'écriture par le routage réel (profil perf, le
+ * « réplica » est un second pool sur la même base H2) : leurs lectures de
+ * vérification doivent aller à la base principale, seules les lectures des
+ * services en lecture seule vont au réplica, sans alimenter le cache de second
+ * niveau.
+ */
+@SpringBootTest(properties = "mdd.datasource.replica.url=jdbc:h2:mem:mdd;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("perf")
+class ReplicaRoutingWriteTests {
+
+	@Autowired
+	private ArticleService articleService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private ThemeService themeService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRespository userRepository;
+
+	@Autowired
+	private BCryptPasswordEncoder passwordEncoder;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void writePathsReadThePrimary() {
+		User author = new User();
+		author.setUsername("routing-author");
+		author.setEmail("routing-author@mdd.fr");
+		author.setPassword(passwordEncoder.encode("Password1"));
+		author.setRole("User");
+		author = userRepository.save(author);
+		Long themeId = themeService.saveTheme(new ThemeDTO(null, "Routage", "Réplica")).getId();
+
+		double replicaBefore = replicaConnections();
+		ArticleDTO article = new ArticleDTO();
+		article.setTitle("Écrit juste après le thème");
+		article.setContent("Le réplica peut ne pas encore connaître le thème");
+		article.setThemeId(themeId);
+		ArticleDTO created = articleService.createArticle(article, author.getId());
+		commentService.saveComment(new CommentPayload("Premier", author.getId(), created.getId()));
+		assertThat(replicaConnections()).isEqualTo(replicaBefore);
+
+		articleService.findArticleById(created.getId());
+		assertThat(replicaConnections()).isGreaterThan(replicaBefore);
+	}
+
+	@Test
+	void replicaReadAfterLaggedWriteIsNotCached() {
+		User user = new User();
+		user.setUsername("routing-before");
+		user.setEmail("routing-lag@mdd.fr");
+		user.setPassword(passwordEncoder.encode("Password1"));
+		user.setRole("User");
+		user = userRepository.save(user);
+		// Écriture validée sur la base principale : l'entrée du cache est évincée
+		user.setUsername("routing-after");
+		userRepository.save(user);
+
+		// Le « réplica » n'a pas encore reçu l'écriture
+		jdbcTemplate.update("update users set username = ? where id = ?", "routing-before", user.getId());
+		double replicaBefore = replicaConnections();
+		assertThat(userService.findById(user.getId()).getUsername()).isEqualTo("routing-before");
+		assertThat(replicaConnections()).isGreaterThan(replicaBefore);
+		assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isFalse();
+
+		// Le réplica a rattrapé son retard : la ligne périmée n'est servie par aucun cache
+		jdbcTemplate.update("update users set username = ? where id = ?", "routing-after", user.getId());
+		assertThat(userService.findById(user.getId()).getUsername()).isEqualTo("routing-after");
+		assertThat(userRepository.findById(user.getId())).get().extracting(User::getUsername)
+				.isEqualTo("routing-after");
+	}
+
+	private double replicaConnections() {
+		return meterRegistry.get("mdd.datasource.routing").tag("target", "replica").counter().count();
+	}
+}
@@ -0,0 +1,167 @@
+package com.mdd.pocmdd.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mdd.pocmdd.dto.ArticleImportResult;
+import com.mdd.pocmdd.dto.ThemeDTO;
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.repository.ArticleRepository;
+import com.mdd.pocmdd.repository.ThemeRepository;
+import com.mdd.pocmdd.repository.UserRespository;
+import com.mdd.pocmdd.services.JWTService;
+import com.mdd.pocmdd.services.ThemeService;
+
+/**
+ * Import en masse par /api/articles/bulk sur l'application complète (profil
+ * perf, base H2), avec des lots de 3 lignes : un résultat par ligne non vide,
+ * dans l'ordre du flux, et une ligne en erreur n'entraîne pas les autres lignes
+ * de son lot.
+ */
+@SpringBootTest(properties = "mdd.import.chunk-size=3")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ArticleImportTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRespository userRepository;
+
+	@Autowired
+	private ThemeRepository themeRepository;
+
+	@Autowired
+	private ArticleRepository articleRepository;
+
+	@Autowired
+	private ThemeService themeService;
+
+	@Autowired
+	private JWTService jwtService;
+
+	@Autowired
+	private BCryptPasswordEncoder passwordEncoder;
+
+	private Long themeId;
+	private String token;
+
+	@BeforeAll
+	void setUp() {
+		User importer = new User();
+		importer.setUsername("importer");
+		importer.setEmail("importer@example.com");
+		importer.setPassword(passwordEncoder.encode("Password1"));
+		importer.setRole("User");
+		importer = userRepository.save(importer);
+		themeId = themeService.saveTheme(new ThemeDTO(null, "Import", "Import en masse")).getId();
+		token = jwtService.generateToken(importer, List.of());
+	}
+
+	@Test
+	void eachLineGetsItsResultAcrossChunks() throws Exception {
+		List<ArticleImportResult> results = importLines(
+				article("Premier", "Contenu", "\"themeTitle\":\"import\""),
+				"{pas du JSON",
+				"",
+				article("Deuxième", "Contenu", "\"themeId\":" + themeId),
+				"{\"content\":\"Sans titre\",\"themeId\":" + themeId + "}",
+				article("Thème inconnu", "Contenu", "\"themeTitle\":\"Inconnu\""),
+				article("Autre auteur", "Contenu", "\"themeId\":" + themeId + ",\"author\":\"autre@example.com\""),
+				article("Troisième", "Contenu", "\"themeId\":" + themeId));
+
+		// La ligne vide n'a pas de résultat ; 7 résultats, en lots de 3, 3 et 1
+		assertThat(results).extracting(ArticleImportResult::getLine).containsExactly(1, 2, 4, 5, 6, 7, 8);
+		assertThat(results).extracting(ArticleImportResult::getStatus).containsExactly(ArticleImportResult.CREATED,
+				ArticleImportResult.REJECTED, ArticleImportResult.CREATED, ArticleImportResult.REJECTED,
+				ArticleImportResult.REJECTED, ArticleImportResult.REJECTED, ArticleImportResult.CREATED);
+		assertCreated(results.get(0), results.get(2), results.get(6));
+		assertThat(results.get(3).getError()).isEqualTo("Titre manquant");
+		assertThat(results.get(4).getError()).isEqualTo("Thème inconnu");
+		assertThat(results.get(5).getError()).startsWith("Auteur refusé");
+	}
+
+	@Test
+	void oversizedContentIsRejectedAlone() throws Exception {
+		List<ArticleImportResult> results = importLines(
+				article("Avant", "Contenu", "\"themeId\":" + themeId),
+				article("Trop long", "é".repeat(40_000), "\"themeId\":" + themeId),
+				article("Après", "Contenu", "\"themeId\":" + themeId));
+
+		// 80 000 octets en UTF-8 : refusé avant l'insertion, le lot est enregistré
+		assertThat(results).extracting(ArticleImportResult::getStatus).containsExactly(ArticleImportResult.CREATED,
+				ArticleImportResult.REJECTED, ArticleImportResult.CREATED);
+		assertThat(results.get(1).getError()).startsWith("Contenu trop long");
+		assertCreated(results.get(0), results.get(2));
+	}
+
+	@Test
+	void recordRefusedByTheDatabaseFailsAlone() throws Exception {
+		// Thème supprimé après le chargement du catalogue : l'insertion viole la clé étrangère
+		Long deletedThemeId = themeService.saveTheme(new ThemeDTO(null, "Supprimé", "Supprimé")).getId();
+		themeRepository.deleteById(deletedThemeId);
+
+		List<ArticleImportResult> results = importLines(
+				article("Avant", "Contenu", "\"themeId\":" + themeId),
+				article("Thème supprimé", "Contenu", "\"themeId\":" + deletedThemeId),
+				article("Après", "Contenu", "\"themeId\":" + themeId));
+
+		assertThat(results).extracting(ArticleImportResult::getStatus).containsExactly(ArticleImportResult.CREATED,
+				ArticleImportResult.FAILED, ArticleImportResult.CREATED);
+		assertThat(results.get(1).getArticleId()).isNull();
+		assertCreated(results.get(0), results.get(2));
+	}
+
+	private List<ArticleImportResult> importLines(String... lines) throws Exception {
+		MvcResult started = mockMvc.perform(post("/api/articles/bulk")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + token).contentType(MediaType.APPLICATION_NDJSON)
+				.accept(MediaType.APPLICATION_NDJSON).content(String.join("\n", lines)))
+				.andExpect(request().asyncStarted()).andReturn();
+		MvcResult result = mockMvc.perform(asyncDispatch(started)).andReturn();
+
+		assertThat(result.getResponse().getStatus()).isEqualTo(200);
+		List<ArticleImportResult> results = new ArrayList<>();
+		for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+			if (!line.isBlank()) {
+				results.add(objectMapper.readValue(line, ArticleImportResult.class));
+			}
+		}
+		return results;
+	}
+
+	private void assertCreated(ArticleImportResult... results) {
+		for (ArticleImportResult result : results) {
+			assertThat(result.getStatus()).isEqualTo(ArticleImportResult.CREATED);
+			assertThat(articleRepository.existsById(result.getArticleId())).isTrue();
+		}
+	}
+
+	private static String article(String title, String content, String theme) {
+		return "{\"title\":\"" + title + "\",\"content\":\"" + content + "\"," + theme + "}";
+	}
+}
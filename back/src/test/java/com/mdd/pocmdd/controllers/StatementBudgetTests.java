@@ -0,0 +1,226 @@
+package com.mdd.pocmdd.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.mdd.pocmdd.config.StatementBudgetFilter;
+import com.mdd.pocmdd.dto.ThemeDTO;
+import com.mdd.pocmdd.models.Article;
+import com.mdd.pocmdd.models.Comment;
+import com.mdd.pocmdd.models.Theme;
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.repository.ArticleRepository;
+import com.mdd.pocmdd.repository.CommentRepository;
+import com.mdd.pocmdd.repository.ThemeRepository;
+import com.mdd.pocmdd.repository.UserRespository;
+import com.mdd.pocmdd.services.ArticleSearchService;
+import com.mdd.pocmdd.services.JWTService;
+import com.mdd.pocmdd.services.ThemeService;
+
+/**
+ * Budget de requêtes SQL de chaque point d'accès des contrôleurs, mesuré par
+ * {@link StatementBudgetFilter} sur l'application complète (profil perf, base
+ * H2). Un budget dépassé signale un N+1 réintroduit dans un service.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementBudgetTests {
+
+	private static final String PASSWORD = "Password1";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRespository userRepository;
+
+	@Autowired
+	private ThemeRepository themeRepository;
+
+	@Autowired
+	private ArticleRepository articleRepository;
+
+	@Autowired
+	private CommentRepository commentRepository;
+
+	@Autowired
+	private ThemeService themeService;
+
+	@Autowired
+	private ArticleSearchService articleSearchService;
+
+	@Autowired
+	private JWTService jwtService;
+
+	@Autowired
+	private BCryptPasswordEncoder passwordEncoder;
+
+	private User reader;
+	private User subscriber;
+	private List<Long> themeIds;
+	private Long otherThemeId;
+	private Long articleId;
+	private String readerToken;
+
+	@BeforeAll
+	void setUp() {
+		User author = saveUser("author");
+		reader = saveUser("reader");
+		subscriber = saveUser("subscriber");
+		Theme java = themeRepository.findById(themeService.saveTheme(new ThemeDTO(null, "Java", "JVM")).getId())
+				.orElseThrow();
+		Theme go = themeRepository.findById(themeService.saveTheme(new ThemeDTO(null, "Go", "Go")).getId())
+				.orElseThrow();
+		otherThemeId = themeService.saveTheme(new ThemeDTO(null, "Rust", "Rust")).getId();
+
+		LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+		for (int i = 0; i < 30; i++) {
+			Article article = new Article();
+			article.setTitle("Article " + i);
+			article.setContent("Contenu de l'article " + i);
+			article.setCreatedAt(start.plusMinutes(i));
+			article.setUser(i % 2 == 0 ? author : reader);
+			article.setTheme(i % 3 == 0 ? java : go);
+			article.setCommentCount(5);
+			article = articleRepository.save(article);
+			for (int j = 0; j < 5; j++) {
+				Comment comment = new Comment();
+				comment.setContent("Commentaire " + j);
+				comment.setUser(j % 2 == 0 ? reader : author);
+				comment.setAuthorName(comment.getUser().getUsername());
+				comment.setArticle(article);
+				commentRepository.save(comment);
+			}
+			articleId = article.getId();
+		}
+		articleSearchService.rebuild();
+
+		reader.getSubscribedThemes().add(java);
+		reader.getSubscribedThemes().add(go);
+		reader = userRepository.save(reader);
+		subscriber.getSubscribedThemes().add(java);
+		subscriber = userRepository.save(subscriber);
+		themeIds = List.of(java.getId(), go.getId());
+		readerToken = jwtService.generateToken(reader, themeIds);
+	}
+
+	@Test
+	void articleEndpoints() throws Exception {
+		// Version des abonnements + fil chargé en mémoire + articles de la page
+		assertWithinBudget(authenticated(get("/api/articles").accept(MediaType.APPLICATION_JSON)), 3);
+		assertWithinBudget(authenticated(get("/api/articles/search").param("q", "contenu")), 1);
+		// Version de l'article + article avec nombre de commentaires + commentaires
+		assertWithinBudget(authenticated(get("/api/article/" + articleId)), 3);
+		// Auteur + thème + insertion
+		assertWithinBudget(authenticated(post("/api/article").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Nouveau\",\"content\":\"Texte\",\"themeId\":" + themeIds.get(0) + "}")), 3);
+	}
+
+	@Test
+	void commentEndpoints() throws Exception {
+		// Page de commentaires + nombre total, lu sur l'article
+		assertWithinBudget(authenticated(get("/api/comments/article/" + articleId).accept(MediaType.APPLICATION_JSON)),
+				2);
+		// Article + auteur + insertion + nombre de commentaires de l'article
+		assertWithinBudget(authenticated(post("/api/comments/comment").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\":\"Bravo\",\"userId\":" + reader.getId() + ",\"articleId\":" + articleId + "}")),
+				4);
+	}
+
+	@Test
+	void themeEndpoints() throws Exception {
+		// Catalogue en mémoire, rechargé au plus une fois
+		assertWithinBudget(authenticated(get("/api/themes")), 1);
+		assertWithinBudget(authenticated(get("/api/theme/" + otherThemeId)), 2);
+		// Insertion + rechargement du catalogue
+		assertWithinBudget(authenticated(post("/api/theme").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Kotlin\",\"description\":\"JVM\"}")), 2);
+	}
+
+	@Test
+	void userEndpoints() throws Exception {
+		// Utilisateur + abonnements, au plus (voir profileIsServedFromTheSecondLevelCache)
+		assertWithinBudget(authenticated(get("/api/me")), 2);
+		// Utilisateur et abonnements + unicité du nom + mise à jour
+		assertWithinBudget(authenticated(put("/api/update").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"reader2\",\"email\":\"reader@example.com\",\"subscribedThemes\":[]}")), 3);
+		// Utilisateur + abonnements
+		assertWithinBudget(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"usernameOrEmail\":\"reader@example.com\",\"password\":\"" + PASSWORD + "\"}"), 2);
+		// Unicité du nom et de l'email (contrôleur puis service) + insertion
+		assertWithinBudget(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"newcomer\",\"email\":\"newcomer@example.com\",\"password\":\"" + PASSWORD
+						+ "\"}"), 5);
+	}
+
+	@Test
+	void profileIsServedFromTheSecondLevelCache() throws Exception {
+		assertWithinBudget(authenticated(get("/api/me")), 2);
+		// Utilisateur, abonnements et thèmes lus dans le cache de second niveau
+		assertWithinBudget(authenticated(get("/api/me")), 0);
+	}
+
+	@Test
+	void subscriptionEndpoints() throws Exception {
+		String token = jwtService.generateToken(subscriber, List.of(themeIds.get(0)));
+		// Lecture verrouillée + insertion dans la table d'abonnement + mise à jour de la version,
+		// puis utilisateur et abonnements du nouveau token
+		assertWithinBudget(post("/api/subscribe/" + themeIds.get(1)).header(HttpHeaders.AUTHORIZATION,
+				"Bearer " + token), 5);
+		// Abonnement déjà présent : lecture verrouillée et insertion
+		assertWithinBudget(post("/api/subscribe/" + themeIds.get(1)).header(HttpHeaders.AUTHORIZATION,
+				"Bearer " + token), 2);
+		// Lecture verrouillée + suppression dans la table d'abonnement + mise à jour de la version,
+		// puis utilisateur et abonnements du nouveau token
+		assertWithinBudget(delete("/api/unsubscribe/" + themeIds.get(1)).header(HttpHeaders.AUTHORIZATION,
+				"Bearer " + token), 5);
+		// Plusieurs thèmes : toujours une seule requête sur la table d'abonnement
+		assertWithinBudget(post("/api/subscribe").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON).content(List.of(themeIds.get(1), otherThemeId).toString()), 5);
+		assertWithinBudget(post("/api/unsubscribe").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON).content(List.of(themeIds.get(1), otherThemeId).toString()), 5);
+	}
+
+	private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request) {
+		return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken);
+	}
+
+	private void assertWithinBudget(MockHttpServletRequestBuilder request, int budget) throws Exception {
+		MvcResult result = mockMvc.perform(request).andReturn();
+
+		assertThat(result.getResponse().getStatus()).isLessThan(400);
+		Object statements = result.getRequest().getAttribute(StatementBudgetFilter.STATEMENT_COUNT_ATTRIBUTE);
+		assertThat((Integer) statements).isNotNull().isLessThanOrEqualTo(budget);
+	}
+
+	private User saveUser(String username) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@example.com");
+		user.setPassword(passwordEncoder.encode(PASSWORD));
+		user.setRole("User");
+		return userRepository.save(user);
+	}
+}
@@ -0,0 +1,100 @@
+package com.mdd.pocmdd.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.mdd.pocmdd.dto.SearchDocument;
+import com.mdd.pocmdd.repository.ArticleRepository;
+
+/**
+ * Vérifie le découpage en termes et le classement BM25 de l'index de recherche
+ * sur un corpus fixe, lu par une base simulée.
+ */
+class ArticleSearchServiceTests {
+
+	private static final List<SearchDocument> CORPUS = List.of(
+			new SearchDocument(1L, 1L, "Java moderne", "Les nouveautés du langage"),
+			new SearchDocument(2L, 1L, "Nouveautés du langage", "Java moderne et ses outils"),
+			new SearchDocument(3L, 2L, "Cuisine française", "Crème brûlée et pâtisserie"),
+			new SearchDocument(4L, 2L, "Pâtisserie", "La crème au cœur du dessert"),
+			new SearchDocument(5L, 1L, "Guide", "Spring"),
+			new SearchDocument(6L, 1L, "Guide complet", "Spring configuration sécurité données tests déploiement"));
+
+	private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	private ArticleSearchService searchService;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(articleRepository.streamSearchDocuments()).thenAnswer(invocation -> CORPUS.stream());
+		searchService = new ArticleSearchService(articleRepository, transactionManager);
+	}
+
+	@Test
+	void titleOccurrenceOutranksContentOccurrence() {
+		searchService.rebuild();
+
+		// « java » dans le titre de l'article 1, dans le contenu de l'article 2
+		assertThat(searchService.search("java", null, 10)).containsExactly(1L, 2L);
+	}
+
+	@Test
+	void shorterArticleRanksFirstForSameFrequency() {
+		searchService.rebuild();
+
+		// Même fréquence de « spring » : la normalisation par longueur favorise l'article court
+		assertThat(searchService.search("spring", null, 10)).containsExactly(5L, 6L);
+		assertThat(searchService.search("spring", null, 1)).containsExactly(5L);
+	}
+
+	@Test
+	void matchingIgnoresCaseAndAccents() {
+		searchService.rebuild();
+
+		// L'article 3 contient les deux termes, l'article 4 un seul
+		assertThat(searchService.search("CREME brulee", null, 10)).containsExactly(3L, 4L);
+		assertThat(searchService.search("pâtisserie", null, 10)).containsExactlyInAnyOrder(3L, 4L);
+	}
+
+	@Test
+	void stopWordsAreIgnored() {
+		searchService.rebuild();
+
+		assertThat(searchService.search("les et du la", null, 10)).isEmpty();
+		assertThat(searchService.search("le java de la", null, 10)).isEqualTo(searchService.search("java", null, 10));
+	}
+
+	@Test
+	void themeFilterRestrictsResults() {
+		searchService.rebuild();
+
+		assertThat(searchService.search("java", 2L, 10)).isEmpty();
+		assertThat(searchService.search("java", 1L, 10)).containsExactly(1L, 2L);
+		assertThat(searchService.search("patisserie", 2L, 10)).containsExactlyInAnyOrder(3L, 4L);
+	}
+
+	@Test
+	void articleIndexedDuringRebuildIsKept() {
+		when(articleRepository.streamSearchDocuments()).thenAnswer(invocation -> {
+			// Créé après la lecture de la base, avant le remplacement de l'index
+			searchService.index(new SearchDocument(7L, 1L, "Kotlin", "Coroutines"));
+			return CORPUS.stream();
+		});
+
+		searchService.rebuild();
+
+		assertThat(searchService.search("kotlin", null, 10)).containsExactly(7L);
+		assertThat(searchService.search("java", null, 10)).containsExactly(1L, 2L);
+	}
+}
@@ -0,0 +1,282 @@
+package com.mdd.pocmdd.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.mdd.pocmdd.dto.ArticleDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Vérifie le registre des connexions du flux, la déconnexion des clients trop
+ * lents et la reprise avec Last-Event-ID. Les émetteurs enregistrent les
+ * événements au lieu de les écrire sur un socket.
+ */
+class ArticleStreamServiceTests {
+
+	private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	/**
+	 * Émetteur de la prochaine connexion ; un émetteur enregistreur par défaut.
+	 */
+	private RecordingEmitter nextEmitter;
+
+	private ArticleStreamService streamService;
+
+	@AfterEach
+	void tearDown() {
+		if (streamService != null) {
+			streamService.stop();
+		}
+	}
+
+	@Test
+	void articlesReachOnlyTheSubscribersOfTheirTheme() {
+		start(64, 1, 1_000);
+		RecordingEmitter java = connect(1L, List.of(1L), null);
+		RecordingEmitter go = connect(2L, List.of(2L), null);
+
+		streamService.publish(article(10L, 1L));
+		await(() -> java.events.size() == 1);
+		assertThat(go.events).isEmpty();
+
+		// Abonnement pris en compte sur la connexion ouverte
+		streamService.onSubscribed(2L, List.of(1L));
+		streamService.publish(article(11L, 1L));
+		await(() -> go.events.size() == 1 && java.events.size() == 2);
+		assertThat(go.events.get(0)).contains("\"id\":11");
+
+		streamService.onUnsubscribed(1L, List.of(1L));
+		streamService.publish(article(12L, 1L));
+		await(() -> go.events.size() == 2);
+		assertThat(java.events).hasSize(2);
+		assertThat(connections()).isEqualTo(2);
+	}
+
+	@Test
+	void overflowingConnectionIsClosed() throws Exception {
+		start(2, 1, 60_000);
+		RecordingEmitter slow = blockingEmitter();
+		connect(1L, List.of(1L), null, slow);
+
+		streamService.publish(article(10L, 1L));
+		assertThat(slow.entered.await(5, TimeUnit.SECONDS)).isTrue();
+		try {
+			streamService.publish(article(11L, 1L));
+			streamService.publish(article(12L, 1L));
+			assertThat(counter("mdd.stream.overflow")).isZero();
+
+			// File pleine pendant l'écriture bloquée : le client est déconnecté
+			streamService.publish(article(13L, 1L));
+			assertThat(counter("mdd.stream.overflow")).isEqualTo(1);
+			assertThat(connections()).isZero();
+		} finally {
+			slow.release.countDown();
+		}
+	}
+
+	@Test
+	void stalledWriteIsDisconnectedWithoutDelayingOthers() throws Exception {
+		start(64, 2, 50);
+		RecordingEmitter stuck = blockingEmitter();
+		connect(1L, List.of(1L), null, stuck);
+		RecordingEmitter other = connect(2L, List.of(1L), null);
+
+		try {
+			streamService.publish(article(10L, 1L));
+			assertThat(stuck.entered.await(5, TimeUnit.SECONDS)).isTrue();
+			// Un thread est bloqué : l'autre continue d'écrire aux autres clients
+			streamService.publish(article(11L, 1L));
+			await(() -> other.events.size() == 2);
+
+			Thread.sleep(100);
+			streamService.disconnectStalled();
+			assertThat(counter("mdd.stream.stalled")).isEqualTo(1);
+			assertThat(connections()).isEqualTo(1);
+		} finally {
+			stuck.release.countDown();
+		}
+		// L'écriture abandonnée, l'émetteur est fermé par le thread qui lui écrivait
+		assertThat(stuck.completed.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void moreStalledClientsThanSenderThreadsKeepThePoolBounded() throws Exception {
+		start(64, 2, 50);
+		CountDownLatch release = new CountDownLatch(1);
+		List<RecordingEmitter> stuck = List.of(new RecordingEmitter(release), new RecordingEmitter(release),
+				new RecordingEmitter(release));
+		for (int i = 0; i < stuck.size(); i++) {
+			connect((long) i + 1, List.of(1L), null, stuck.get(i));
+		}
+		RecordingEmitter other = connect(10L, List.of(2L), null);
+
+		try {
+			streamService.publish(article(10L, 1L));
+			await(() -> entered(stuck) == 2);
+			// Les deux threads sont bloqués : pas de thread de plus, les autres envois attendent
+			streamService.publish(article(11L, 2L));
+			Thread.sleep(100);
+			assertThat(entered(stuck)).isEqualTo(2);
+			assertThat(other.events).isEmpty();
+
+			// La fermeture des connexions bloquées n'occupe pas d'autre thread
+			streamService.disconnectStalled();
+			assertThat(counter("mdd.stream.stalled")).isEqualTo(2);
+			assertThat(connections()).isEqualTo(2);
+		} finally {
+			// Délai d'écriture du conteneur atteint : les écritures bloquées échouent
+			release.countDown();
+		}
+		await(() -> other.events.size() == 1);
+		await(() -> stuck.stream().allMatch(emitter -> emitter.completed.getCount() == 0));
+		assertThat(connections()).isEqualTo(1);
+	}
+
+	@Test
+	void reconnectionReplaysMissedArticles() {
+		start(64, 1, 1_000);
+		RecordingEmitter first = connect(1L, List.of(1L), null);
+		streamService.publish(article(10L, 1L));
+		streamService.publish(article(11L, 1L));
+		streamService.publish(article(12L, 2L));
+		streamService.publish(article(13L, 1L));
+		await(() -> first.events.size() == 3);
+
+		// Reprise après le premier article : seuls les articles suivants du thème
+		RecordingEmitter resumed = connect(1L, List.of(1L), eventId(first.events.get(0)));
+		await(() -> resumed.events.size() == 2);
+		assertThat(resumed.events.get(0)).contains("\"id\":11");
+		assertThat(resumed.events.get(1)).contains("\"id\":13");
+
+		// ID d'un autre démarrage : le client doit recharger son fil
+		RecordingEmitter unknown = connect(1L, List.of(1L), "1-1");
+		await(() -> unknown.events.size() == 1);
+		assertThat(unknown.events.get(0)).contains("event:" + ArticleStreamService.RESYNC_EVENT);
+		assertThat(counter("mdd.stream.resync")).isEqualTo(1);
+	}
+
+	private void start(int bufferSize, int senderThreads, long writeTimeoutMillis) {
+		streamService = new ArticleStreamService(Jackson2ObjectMapperBuilder.json().build(), meterRegistry, 60_000,
+				3_600, bufferSize, 100, senderThreads, 100, writeTimeoutMillis) {
+			@Override
+			SseEmitter newEmitter(long timeoutMillis) {
+				RecordingEmitter emitter = nextEmitter != null ? nextEmitter : new RecordingEmitter(null);
+				nextEmitter = null;
+				return emitter;
+			}
+		};
+		streamService.start();
+	}
+
+	private RecordingEmitter connect(Long userId, List<Long> themeIds, String lastEventId) {
+		return connect(userId, themeIds, lastEventId, new RecordingEmitter(null));
+	}
+
+	private RecordingEmitter connect(Long userId, List<Long> themeIds, String lastEventId, RecordingEmitter emitter) {
+		nextEmitter = emitter;
+		assertThat(streamService.connect(userId, themeIds, lastEventId)).isSameAs(emitter);
+		return emitter;
+	}
+
+	private static RecordingEmitter blockingEmitter() {
+		return new RecordingEmitter(new CountDownLatch(1));
+	}
+
+	private static ArticleDTO article(Long id, Long themeId) {
+		ArticleDTO article = new ArticleDTO();
+		article.setId(id);
+		article.setThemeId(themeId);
+		article.setTitle("Article " + id);
+		return article;
+	}
+
+	private static String eventId(String event) {
+		Matcher matcher = EVENT_ID.matcher(event);
+		assertThat(matcher.find()).isTrue();
+		return matcher.group(1);
+	}
+
+	private static long entered(List<RecordingEmitter> emitters) {
+		return emitters.stream().filter(emitter -> emitter.entered.getCount() == 0).count();
+	}
+
+	private double counter(String name) {
+		return meterRegistry.get(name).counter().count();
+	}
+
+	private double connections() {
+		return meterRegistry.get("mdd.stream.connections").gauge().value();
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition non atteinte à temps").isLessThan(deadline);
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Émetteur qui enregistre le texte de chaque événement envoyé. Avec un
+	 * verrou, la première écriture reste bloquée jusqu'à son ouverture, comme
+	 * sur le socket d'un client qui ne lit plus, puis échoue comme une écriture
+	 * abandonnée par le conteneur.
+	 */
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final List<String> events = new CopyOnWriteArrayList<>();
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private final CountDownLatch release;
+
+		private RecordingEmitter(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			entered.countDown();
+			if (release != null) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				}
+				throw new IOException("Délai d'écriture dépassé");
+			}
+			StringBuilder text = new StringBuilder();
+			for (DataWithMediaType data : builder.build()) {
+				text.append(data.getData());
+			}
+			// Les battements de cœur ne sont pas des événements
+			if (!text.toString().startsWith(":")) {
+				events.add(text.toString());
+			}
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+			super.complete();
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.mdd.pocmdd.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.payload.CommentPayload;
+import com.mdd.pocmdd.repository.ArticleRepository;
+import com.mdd.pocmdd.repository.UserRespository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Vérifie le regroupement des commentaires en lots, le débordement de la file
+ * et la reprise des écritures en échec. La base est simulée : un lot écrit est
+ * un lot dont la transaction a été validée.
+ */
+class CommentWriteBehindServiceTests {
+
+	private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+	private final UserRespository userRepository = mock(UserRespository.class);
+	private final EntityManager entityManager = mock(EntityManager.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private CommentWriteBehindService writeBehindService;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(articleRepository.existsById(anyLong())).thenReturn(true);
+		when(userRepository.findUsernameById(anyLong()))
+				.thenAnswer(invocation -> Optional.of("user" + invocation.getArgument(0)));
+		when(userRepository.findAllById(anyCollection())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		if (writeBehindService != null) {
+			writeBehindService.stop();
+		}
+	}
+
+	@Test
+	void batchesAreCappedAtFlushSize() {
+		writeBehindService = service(100, 5, 1_000, CommentWriteBehindService.Overflow.REJECT);
+		for (int i = 0; i < 12; i++) {
+			writeBehindService.submit(comment(1L));
+		}
+
+		writeBehindService.start();
+		await(() -> batches().count() == 3);
+		assertThat(batches().max()).isEqualTo(5);
+		assertThat(batches().totalAmount()).isEqualTo(12);
+		// Un incrément du nombre de commentaires par article et par lot
+		verify(articleRepository, times(2)).incrementCommentCount(1L, 5L);
+		verify(articleRepository).incrementCommentCount(1L, 2L);
+	}
+
+	@Test
+	void incompleteBatchIsWrittenAfterFlushLatency() {
+		writeBehindService = service(100, 200, 20, CommentWriteBehindService.Overflow.REJECT);
+		writeBehindService.start();
+
+		writeBehindService.submit(comment(1L));
+		// Pas d'autre commentaire : le lot part seul à l'échéance
+		await(() -> batches().count() == 1);
+		assertThat(batches().totalAmount()).isEqualTo(1);
+	}
+
+	@Test
+	void fullQueueRejectsComment() {
+		writeBehindService = service(1, 200, 20, CommentWriteBehindService.Overflow.REJECT);
+		writeBehindService.submit(comment(1L));
+
+		assertThatThrownBy(() -> writeBehindService.submit(comment(1L)))
+				.isInstanceOf(CommentQueueFullException.class);
+		assertThat(counter("mdd.comments.write-behind.overflow")).isEqualTo(1);
+	}
+
+	@Test
+	void fullQueueHandsCommentBackToCaller() {
+		writeBehindService = service(1, 200, 20, CommentWriteBehindService.Overflow.SYNC);
+		assertThat(writeBehindService.submit(comment(1L))).isNotNull();
+
+		// null : l'appelant enregistre le commentaire lui-même
+		assertThat(writeBehindService.submit(comment(1L))).isNull();
+		assertThat(counter("mdd.comments.write-behind.overflow")).isEqualTo(1);
+	}
+
+	@Test
+	void transientFailureRetriesWholeBatch() {
+		doThrow(new TransientDataAccessResourceException("Connexion indisponible")).doNothing()
+				.when(entityManager).flush();
+		writeBehindService = service(100, 5, 1_000, CommentWriteBehindService.Overflow.REJECT);
+		for (int i = 0; i < 5; i++) {
+			writeBehindService.submit(comment(1L));
+		}
+
+		writeBehindService.start();
+		await(() -> batches().count() == 1);
+		assertThat(batches().max()).isEqualTo(5);
+		assertThat(counter("mdd.comments.write-behind.retries")).isEqualTo(1);
+		assertThat(counter("mdd.comments.write-behind.failed")).isZero();
+	}
+
+	@Test
+	void dataErrorDropsOnlyTheFaultyComment() {
+		writeBehindService = service(100, 5, 1_000, CommentWriteBehindService.Overflow.REJECT);
+		writeBehindService.submit(comment(1L));
+		writeBehindService.submit(comment(2L));
+		writeBehindService.submit(comment(1L));
+		// Auteur supprimé entre l'accusé de réception et l'écriture
+		when(userRepository.findAllById(anyCollection()))
+				.thenAnswer(invocation -> users(invocation.<Collection<Long>>getArgument(0).stream()
+						.filter(id -> id != 2L).toList()));
+
+		writeBehindService.start();
+		await(() -> counter("mdd.comments.write-behind.failed") == 1);
+		assertThat(counter("mdd.comments.write-behind.retries")).isZero();
+	}
+
+	private CommentWriteBehindService service(int queueCapacity, int flushSize, long flushLatencyMillis,
+			CommentWriteBehindService.Overflow overflow) {
+		return new CommentWriteBehindService(articleRepository, userRepository, entityManager, transactionManager,
+				meterRegistry, true, queueCapacity, flushSize, flushLatencyMillis, overflow, 1);
+	}
+
+	private static CommentPayload comment(Long userId) {
+		return new CommentPayload("Commentaire", userId, 1L);
+	}
+
+	private static List<User> users(Collection<Long> ids) {
+		return ids.stream().map(id -> {
+			User user = new User();
+			user.setId(id);
+			user.setUsername("user" + id);
+			return user;
+		}).toList();
+	}
+
+	private DistributionSummary batches() {
+		return meterRegistry.get("mdd.comments.write-behind.batch.size").summary();
+	}
+
+	private double counter(String name) {
+		return meterRegistry.get(name).counter().count();
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition non atteinte à temps").isLessThan(deadline);
+			Thread.onSpinWait();
+		}
+	}
+}
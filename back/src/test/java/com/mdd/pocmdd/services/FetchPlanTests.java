@@ -0,0 +1,252 @@
+package com.mdd.pocmdd.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mdd.pocmdd.dto.ArticleDTO;
+import com.mdd.pocmdd.dto.CommentPageDTO;
+import com.mdd.pocmdd.dto.FeedPageDTO;
+import com.mdd.pocmdd.dto.UserDTO;
+import com.mdd.pocmdd.mapper.ArticleMapperImpl;
+import com.mdd.pocmdd.models.Article;
+import com.mdd.pocmdd.models.Comment;
+import com.mdd.pocmdd.models.Theme;
+import com.mdd.pocmdd.models.User;
+import com.mdd.pocmdd.payload.CommentPayload;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Vérifie que les lectures des services exécutent un nombre fixe de requêtes
+ * SQL, quel que soit le nombre d'articles, de commentaires ou d'abonnements.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@Import({ ArticleService.class, ArticleSearchService.class, CommentService.class, UserService.class, TimelineService.class,
+		PasswordHashingService.class, SubscriptionVersionService.class, ArticleStreamService.class, ArticleMapperImpl.class,
+		BCryptPasswordEncoder.class, SimpleMeterRegistry.class, ObjectMapper.class })
+class FetchPlanTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ArticleService articleService;
+
+	@Autowired
+	private ArticleSearchService articleSearchService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private UserService userService;
+
+	private User reader;
+	private List<Long> themeIds;
+	private Article article;
+
+	@BeforeEach
+	void setUp() {
+		User author = persistUser("author");
+		reader = persistUser("reader");
+		Theme java = persistTheme("Java");
+		Theme go = persistTheme("Go");
+
+		LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+		for (int i = 0; i < 10; i++) {
+			Article a = new Article();
+			a.setTitle("Article " + i);
+			a.setContent("Contenu " + i);
+			a.setCreatedAt(start.plusMinutes(i));
+			a.setUser(i % 2 == 0 ? author : reader);
+			a.setTheme(i % 3 == 0 ? java : go);
+			a.setCommentCount(3);
+			entityManager.persist(a);
+			for (int j = 0; j < 3; j++) {
+				Comment comment = new Comment();
+				comment.setContent("Commentaire " + j);
+				comment.setUser(j % 2 == 0 ? reader : author);
+				comment.setAuthorName(comment.getUser().getUsername());
+				comment.setArticle(a);
+				entityManager.persist(comment);
+			}
+			article = a;
+		}
+		reader.getSubscribedThemes().add(java);
+		reader.getSubscribedThemes().add(go);
+		themeIds = List.of(java.getId(), go.getId());
+
+		entityManager.flush();
+		entityManager.clear();
+		statistics().clear();
+	}
+
+	@Test
+	void feedPageRunsTwoStatements() {
+		FeedPageDTO page = articleService.findallArticleByTheme(reader.getId(), themeIds, null, 5);
+
+		assertThat(page.getArticles()).hasSize(5);
+		assertThat(page.getArticles()).allSatisfy(dto -> {
+			assertThat(dto.getAuthorName()).isNotNull();
+			assertThat(dto.getThemeTitle()).isNotNull();
+		});
+		// Références du fil + articles de la page avec auteurs et thèmes
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void articleDetailRunsTwoStatements() {
+		ArticleDTO dto = articleService.findArticleById(article.getId());
+
+		assertThat(dto.getAuthorName()).isNotNull();
+		assertThat(dto.getCommentCount()).isEqualTo(3);
+		assertThat(dto.getComments()).hasSize(3).allSatisfy(comment -> assertThat(comment.getAuthorName()).isNotNull());
+		// Article avec auteur, thème et nombre de commentaires + premiers commentaires avec auteurs
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void searchRunsOneStatement() {
+		articleSearchService.rebuild();
+		statistics().clear();
+
+		List<ArticleDTO> results = articleService.searchArticles("contenu", null, 5);
+
+		assertThat(results).hasSize(5);
+		// L'index est en mémoire : seuls les articles trouvés sont chargés
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void articleVersionRunsOneStatement() {
+		String version = articleService.getArticleVersion(article.getId()).orElseThrow();
+
+		assertThat(version).endsWith("-3");
+		// Date de modification et nombre de commentaires, lus sur la ligne de l'article
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void articleVersionChangesWithNewComment() {
+		String before = articleService.getArticleVersion(article.getId()).orElseThrow();
+		commentService.saveComment(new CommentPayload("Nouveau", reader.getId(), article.getId()));
+		entityManager.clear();
+
+		String after = articleService.getArticleVersion(article.getId()).orElseThrow();
+
+		assertThat(after).isNotEqualTo(before).endsWith("-4");
+	}
+
+	@Test
+	void commentPageRunsTwoStatements() {
+		CommentPageDTO page = commentService.getCommentsByArticleId(article.getId(), null, 2);
+
+		assertThat(page.getComments()).hasSize(2).allSatisfy(comment -> assertThat(comment.getAuthorName()).isNotNull());
+		assertThat(page.getTotalCount()).isEqualTo(3);
+		assertThat(page.getNextAfterId()).isEqualTo(page.getComments().get(1).getId());
+		// Page de commentaires avec auteurs + nombre total, lu sur l'article
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void savedCommentIsCountedOnArticle() {
+		commentService.saveComment(new CommentPayload("Nouveau", reader.getId(), article.getId()));
+		entityManager.clear();
+
+		assertThat(articleService.findArticleById(article.getId()).getCommentCount()).isEqualTo(4);
+	}
+
+	@Test
+	void userProfileRunsTwoStatementsWhenNotCached() {
+		UserDTO dto = userService.findById(reader.getId());
+
+		assertThat(dto.getSubscribedThemes()).hasSize(2);
+		// Utilisateur + abonnements avec leurs thèmes ; les lectures suivantes passent par le cache de second niveau
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void currentTokenSubscriptionsSkipTheUserLoad() {
+		List<Long> first = userService.getSubscribedThemeIds(reader.getId(), themeIds, 0L);
+		List<Long> second = userService.getSubscribedThemeIds(reader.getId(), themeIds, 0L);
+
+		assertThat(first).isEqualTo(themeIds);
+		assertThat(second).isEqualTo(themeIds);
+		// Seule la première lecture de la version d'abonnements touche la base
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void staleTokenSubscriptionsAreReadFromTheJoinTable() {
+		List<Long> ids = userService.getSubscribedThemeIds(reader.getId(), List.of(), -1L);
+
+		assertThat(ids).containsExactlyInAnyOrderElementsOf(themeIds);
+		// Version d'abonnements + IDs des thèmes suivis
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void subscriptionChangesWriteTheJoinTableDirectly() {
+		Theme rust = persistTheme("Rust");
+		entityManager.flush();
+		statistics().clear();
+
+		assertThat(userService.subscribeUserToThemes(reader.getId(), List.of(rust.getId()))).isEqualTo(1);
+		// La nouvelle version est écrite à la validation de la transaction
+		entityManager.flush();
+		// Lecture verrouillée + insertion dans la table d'abonnement + mise à jour de la version
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(3);
+
+		statistics().clear();
+		assertThat(userService.subscribeUserToThemes(reader.getId(), List.of(rust.getId()))).isZero();
+		entityManager.flush();
+		// Abonnement déjà présent : lecture verrouillée et insertion, sans changement de version
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+
+		statistics().clear();
+		assertThat(userService.unsubscribeUserFromThemes(reader.getId(), List.of(rust.getId(), themeIds.get(0))))
+				.isEqualTo(2);
+		entityManager.flush();
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(3);
+		assertThat(userService.getSubscribedThemeIds(reader.getId())).containsExactly(themeIds.get(1));
+	}
+
+	private User persistUser(String username) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@example.com");
+		user.setPassword("Password1");
+		user.setRole("User");
+		return entityManager.persist(user);
+	}
+
+	private Theme persistTheme(String title) {
+		Theme theme = new Theme();
+		theme.setTitle(title);
+		theme.setDescription("Description " + title);
+		return entityManager.persist(theme);
+	}
+
+	private Statistics statistics() {
+		return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+}
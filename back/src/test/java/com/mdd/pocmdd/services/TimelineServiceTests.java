@@ -0,0 +1,97 @@
+package com.mdd.pocmdd.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.mdd.pocmdd.dto.TimelineEntry;
+import com.mdd.pocmdd.repository.ArticleRepository;
+
+/**
+ * Vérifie que les entrées d'un fil en mémoire restent les plus récentes du
+ * fil, malgré les publications concurrentes et les changements d'abonnement.
+ */
+class TimelineServiceTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+
+	@Test
+	void articlePublishedDuringLoadIsKept() {
+		TimelineService timelineService = new TimelineService(articleRepository, 10, 100);
+		when(articleRepository.findTimelineEntries(anyCollection(), any(Pageable.class))).thenAnswer(invocation -> {
+			// Publié après la lecture de la base, avant la mise en mémoire du fil
+			timelineService.publish(entry(2, 1));
+			return List.of(entry(1, 1));
+		});
+
+		assertThat(articleIds(timelineService.readPage(1L, List.of(1L), null, 10))).containsExactly(2L, 1L);
+	}
+
+	@Test
+	void readDuringBackfillFallsBackToDatabase() {
+		TimelineService timelineService = new TimelineService(articleRepository, 10, 100);
+		List<List<TimelineEntry>> pagesDuringBackfill = new ArrayList<>();
+		when(articleRepository.findTimelineEntries(anyCollection(), any(Pageable.class))).thenAnswer(invocation -> {
+			Set<Long> themeIds = new HashSet<>(invocation.<Collection<Long>>getArgument(0));
+			if (themeIds.equals(Set.of(1L))) {
+				return List.of(entry(1, 1));
+			}
+			if (themeIds.equals(Set.of(2L))) {
+				// Lecture du fil avec le nouveau thème pendant le complément
+				pagesDuringBackfill.add(timelineService.readPage(1L, List.of(1L, 2L), null, 10));
+				return List.of(entry(2, 2));
+			}
+			return List.of(entry(2, 2), entry(1, 1));
+		});
+		timelineService.readPage(1L, List.of(1L), null, 10);
+
+		timelineService.onSubscribed(1L, List.of(2L));
+
+		// Le fil en mémoire n'avait pas encore l'article du thème 2 : la page vient de la base
+		assertThat(pagesDuringBackfill).hasSize(1);
+		assertThat(articleIds(pagesDuringBackfill.get(0))).containsExactly(2L, 1L);
+		assertThat(articleIds(timelineService.readPage(1L, List.of(1L, 2L), null, 10))).containsExactly(2L, 1L);
+		// Chargement, complément et lecture pendant le complément ; la dernière page vient de la mémoire
+		verify(articleRepository, times(3)).findTimelineEntries(anyCollection(), any(Pageable.class));
+	}
+
+	@Test
+	void truncatedTimelineIsReloadedAfterSubscribing() {
+		TimelineService timelineService = new TimelineService(articleRepository, 2, 100);
+		when(articleRepository.findTimelineEntries(anyCollection(), any(Pageable.class)))
+				.thenReturn(List.of(entry(4, 1), entry(3, 1)));
+		timelineService.readPage(1L, List.of(1L), null, 2);
+
+		// Pas de complément en mémoire : les articles plus anciens du thème 2
+		// laisseraient un trou après la fin du fil tronqué
+		timelineService.onSubscribed(1L, List.of(2L));
+		verify(articleRepository, times(1)).findTimelineEntries(anyCollection(), any(Pageable.class));
+
+		timelineService.readPage(1L, List.of(1L, 2L), null, 2);
+		verify(articleRepository, times(2)).findTimelineEntries(anyCollection(), any(Pageable.class));
+	}
+
+	private static TimelineEntry entry(long articleId, long themeId) {
+		return new TimelineEntry(articleId, START.plusMinutes(articleId), themeId);
+	}
+
+	private static List<Long> articleIds(List<TimelineEntry> entries) {
+		return entries.stream().map(TimelineEntry::getArticleId).toList();
+	}
+}
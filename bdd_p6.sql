@@ -9,6 +9,7 @@ CREATE TABLE users (
     email VARCHAR(100) NOT NULL UNIQUE,
     password VARCHAR(255) NOT NULL,
     role VARCHAR(20) DEFAULT 'user',
+    subscription_version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 -- Création de la table 'themes'
@@ -25,12 +26,16 @@ CREATE TABLE articles (
     content TEXT NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    comment_count BIGINT NOT NULL DEFAULT 0,
     user_id BIGINT NOT NULL,
     theme_id BIGINT NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users(id),
     FOREIGN KEY (theme_id) REFERENCES themes(id)
 );
 
+-- Index pour le fil d'actualité (filtre par thème, tri par date puis ID)
+CREATE INDEX idx_articles_theme_created ON articles (theme_id, created_at, id);
+
 -- Création de la table 'comments'
 CREATE TABLE comments (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -43,6 +48,13 @@ CREATE TABLE comments (
     FOREIGN KEY (article_id) REFERENCES articles(id)
 );
 
+-- Blocs d'IDs des entités (une ligne par table, alignée au démarrage de
+-- l'application sur le plus grand ID existant)
+CREATE TABLE id_sequences (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
+
 -- Insertion des données dans la table 'users'
 INSERT INTO users (username, email, password, role, created_at) VALUES
 ('john_doe', 'john@example.com', 'password123', 'user', CURRENT_TIMESTAMP),
@@ -70,3 +82,7 @@ INSERT INTO comments (content, created_at, user_id, article_id) VALUES
 ('I learned a lot about async patterns!', CURRENT_TIMESTAMP, 1, 3),
 ('Helpful on Java streams!', CURRENT_TIMESTAMP, 2, 1),
 ('I learned a lot about async patterns!', CURRENT_TIMESTAMP, 1, 3);
+
+-- Nombre de commentaires de chaque article (tenu à jour ensuite par l'application)
+UPDATE articles SET comment_count = (SELECT COUNT(*) FROM comments WHERE comments.article_id = articles.id),
+    updated_at = updated_at;
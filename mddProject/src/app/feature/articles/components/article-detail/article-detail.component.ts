@@ -35,6 +35,11 @@ export class ArticleDetailComponent implements OnInit {
    */
   articleId: number = 0;
 
+  /**
+   * ID du dernier commentaire chargé s'il reste des commentaires à charger, sinon null.
+   */
+  nextCommentAfterId: number | null = null;
+
   /**
    * Utilisateur actuellement connecté.
    */
@@ -64,7 +69,6 @@ export class ArticleDetailComponent implements OnInit {
     if (id) {
       this.articleId = id;
       this.fetchArticle(id);
-      this.fetchComments(id);
     }
 
     // Souscription pour suivre l'utilisateur actuellement connecté
@@ -75,12 +79,17 @@ export class ArticleDetailComponent implements OnInit {
 
   /**
    * Récupère les détails d'un article à partir de son identifiant.
+   * L'article contient ses premiers commentaires et leur nombre total.
    * @param id Identifiant de l'article.
    */
   fetchArticle(id: number): void {
     this.articleService.getArticleById(id).subscribe({
       next: (data) => {
         this.article = data;
+        this.nextCommentAfterId =
+          data.comments.length < data.commentCount && data.comments.length > 0
+            ? data.comments[data.comments.length - 1].id
+            : null;
         this.isLoading = false;
       },
       error: (err) => {
@@ -91,20 +100,23 @@ export class ArticleDetailComponent implements OnInit {
   }
 
   /**
-   * Récupère les commentaires associés à un article.
-   * @param articleId Identifiant de l'article.
+   * Charge la page suivante des commentaires de l'article.
    */
-  fetchComments(articleId: number): void {
-    this.commentService.getCommentsByArticleId(articleId).subscribe({
-      next: (comments) => {
-        if (this.article) {
-          this.article.comments = comments;
-        }
-      },
-      error: (err) => {
-        console.error('Erreur lors de la récupération des commentaires:', err);
-      },
-    });
+  fetchMoreComments(): void {
+    this.commentService
+      .getCommentsByArticleId(this.articleId, this.nextCommentAfterId)
+      .subscribe({
+        next: (page) => {
+          if (this.article) {
+            this.article.comments = [...this.article.comments, ...page.comments];
+            this.article.commentCount = page.totalCount;
+          }
+          this.nextCommentAfterId = page.nextAfterId;
+        },
+        error: (err) => {
+          console.error('Erreur lors de la récupération des commentaires:', err);
+        },
+      });
   }
 
   /**
@@ -122,7 +134,11 @@ export class ArticleDetailComponent implements OnInit {
       this.commentService.saveComment(newComment).subscribe({
         next: (comment) => {
           if (this.article) {
-            this.article.comments.push(comment);
+            // Le nouveau commentaire arrivera avec la dernière page s'il en reste à charger
+            if (!this.nextCommentAfterId) {
+              this.article.comments.push(comment);
+            }
+            this.article.commentCount++;
             this.newCommentContent = '';
           }
         },
@@ -11,17 +11,28 @@ export class ArticleListComponent implements OnInit {
   articles: Article[] = []; // Liste des articles
   sortedArticles: Article[] = []; // Liste triée à afficher
   selectedSort: string = 'title'; // Critère de tri sélectionné ('title' ou 'date')
+  nextCursor: string | null = null; // Curseur de la page suivante du fil
+  isLoading: boolean = false; // Indique si une page est en cours de chargement
 
   constructor(private articleService: ArticleService) {}
 
-  // Récupérer les articles au chargement du composant
+  // Récupérer la première page d'articles au chargement du composant
   ngOnInit(): void {
-    this.articleService.getAllArticles().subscribe(
-      (articles) => {
-        this.articles = articles;
+    this.loadPage();
+  }
+
+  // Charge la page suivante du fil (le serveur renvoie les articles du plus récent au plus ancien)
+  loadPage(): void {
+    this.isLoading = true;
+    this.articleService.getFeed(this.nextCursor).subscribe(
+      (page) => {
+        this.articles = [...this.articles, ...page.articles];
+        this.nextCursor = page.nextCursor;
+        this.isLoading = false;
         this.sortArticles(); // Trier les articles dès qu'ils sont récupérés
       },
       (error) => {
+        this.isLoading = false;
         console.error('Erreur lors de la récupération des articles:', error);
       },
     );
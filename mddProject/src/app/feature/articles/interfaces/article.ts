@@ -8,7 +8,8 @@ export interface Article {
     themeId: number | null ;
     authorName: string ;
     themeTitle: string ;
-    comments: Comment[]; // Commentaires de l'article;  // Liste des commentaires associés à l'article
+    comments: Comment[]; // Premiers commentaires de l'article
+    commentCount: number; // Nombre total de commentaires de l'article
 }
 
 export interface Comment {
@@ -20,4 +21,15 @@ export interface Comment {
     authorName: string;
     articleId: number;
 
-}
\ No newline at end of file
+}
+
+export interface FeedPage {
+    articles: Article[]; // Articles de la page, du plus récent au plus ancien
+    nextCursor: string | null; // Curseur de la page suivante (null s'il n'y en a plus)
+}
+
+export interface CommentPage {
+    comments: Comment[]; // Commentaires de la page, du plus ancien au plus récent
+    totalCount: number; // Nombre total de commentaires de l'article
+    nextAfterId: number | null; // ID à transmettre pour obtenir la page suivante (null s'il n'y en a plus)
+}
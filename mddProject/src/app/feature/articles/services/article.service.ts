@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpHeaders } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Article } from '../interfaces/article';
+import { Article, FeedPage } from '../interfaces/article';
 import { environment } from 'src/environments/environment';
 
 @Injectable({
@@ -13,11 +13,17 @@ export class ArticleService {
   constructor(private http: HttpClient) {}
 
   /**
-   * Récupère la liste de tous les articles depuis l'API.
-   * @returns Observable contenant un tableau d'articles.
+   * Récupère une page du fil d'articles depuis l'API.
+   * @param cursor - Curseur renvoyé par la page précédente (absent pour la première page).
+   * @param size - Nombre d'articles par page.
+   * @returns Observable contenant la page d'articles et le curseur suivant.
    */
-  getAllArticles(): Observable<Article[]> {
-    return this.http.get<Article[]>(`${this.baseUrl}articles`);
+  getFeed(cursor?: string | null, size: number = 20): Observable<FeedPage> {
+    let params = new HttpParams().set('size', size);
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    return this.http.get<FeedPage>(`${this.baseUrl}articles`, { params });
   }
 
   /**
@@ -1,8 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpHeaders } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from 'src/environments/environment';
-import { Comment } from '../interfaces/article';
+import { Comment, CommentPage } from '../interfaces/article';
 
 @Injectable({
   providedIn: 'root', // Fournit ce service à l'ensemble de l'application
@@ -24,11 +24,23 @@ export class CommentService {
   }
 
   /**
-   * Récupère tous les commentaires associés à un article spécifique.
+   * Récupère une page de commentaires associés à un article spécifique.
    * @param articleId - L'identifiant unique de l'article.
-   * @returns Observable contenant un tableau de commentaires.
+   * @param afterId - ID du dernier commentaire déjà reçu (absent pour la première page).
+   * @param limit - Nombre maximal de commentaires dans la page.
+   * @returns Observable contenant la page de commentaires et leur nombre total.
    */
-  getCommentsByArticleId(articleId: number): Observable<Comment[]> {
-    return this.http.get<Comment[]>(`${this.apiUrl}/article/${articleId}`);
+  getCommentsByArticleId(
+    articleId: number,
+    afterId?: number | null,
+    limit: number = 20,
+  ): Observable<CommentPage> {
+    let params = new HttpParams().set('limit', limit);
+    if (afterId) {
+      params = params.set('afterId', afterId);
+    }
+    return this.http.get<CommentPage>(`${this.apiUrl}/article/${articleId}`, {
+      params,
+    });
   }
 }
@@ -0,0 +1,4 @@
+export interface SubscriptionResponse {
+    changed: number;                // Nombre d'abonnements ajoutés ou retirés (0 si rien n'a changé)
+    token: string | null;           // Nouveau token portant les abonnements à jour, si quelque chose a changé
+  }
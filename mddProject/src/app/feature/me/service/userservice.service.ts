@@ -1,9 +1,10 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { catchError } from 'rxjs/operators';
+import { catchError, tap } from 'rxjs/operators';
 import { environment } from 'src/environments/environment';
 import { User } from '../interface/user';
+import { SubscriptionResponse } from '../interface/subscription-response';
 
 @Injectable({
   providedIn: 'root',
@@ -41,23 +42,34 @@ export class UserService {
   /**
    * Abonne un utilisateur à un thème.
    * @param themeId L'ID du thème auquel s'abonner
-   * @returns L'utilisateur mis à jour avec ses nouveaux abonnements
+   * @returns Le nombre d'abonnements ajoutés (0 si le thème était déjà suivi)
    */
-  public subscribeToTheme(themeId: number): Observable<User> {
+  public subscribeToTheme(themeId: number): Observable<SubscriptionResponse> {
     return this.http
-      .post<User>(`${this.apiUrl}/subscribe/${themeId}`, {})
-      .pipe(catchError(this.handleError));
+      .post<SubscriptionResponse>(`${this.apiUrl}/subscribe/${themeId}`, {})
+      .pipe(tap((response) => this.storeToken(response)), catchError(this.handleError));
   }
 
   /**
    * Désabonne un utilisateur d'un thème.
    * @param themeId L'ID du thème dont se désabonner
-   * @returns L'utilisateur mis à jour avec ses abonnements
+   * @returns Le nombre d'abonnements retirés (0 si le thème n'était pas suivi)
    */
-  public unsubscribeFromTheme(themeId: number): Observable<User> {
+  public unsubscribeFromTheme(themeId: number): Observable<SubscriptionResponse> {
     return this.http
-      .delete<User>(`${this.apiUrl}/unsubscribe/${themeId}`)
-      .pipe(catchError(this.handleError));
+      .delete<SubscriptionResponse>(`${this.apiUrl}/unsubscribe/${themeId}`)
+      .pipe(tap((response) => this.storeToken(response)), catchError(this.handleError));
+  }
+
+  /**
+   * Remplace le token stocké par celui renvoyé après un changement d'abonnements :
+   * il porte les thèmes à jour, sans quoi chaque lecture du fil relirait la base.
+   * @param response La réponse du changement d'abonnements
+   */
+  private storeToken(response: SubscriptionResponse): void {
+    if (response.token) {
+      localStorage.setItem('token', response.token);
+    }
   }
 
   /**
@@ -1,9 +1,10 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
-import { catchError } from 'rxjs/operators';
+import { catchError, tap } from 'rxjs/operators';
 import { environment } from 'src/environments/environment';
 import { Theme } from '../interface/theme';
+import { SubscriptionResponse } from '../../me/interface/subscription-response';
 
 @Injectable({
   providedIn: 'root',
@@ -52,12 +53,12 @@ export class ThemeService {
    * Permet à un utilisateur de se désabonner d'un thème en fonction de son ID.
    *
    * @param themeId L'ID du thème duquel l'utilisateur souhaite se désabonner.
-   * @returns {Observable<void>} Un observable pour indiquer que l'action a été effectuée.
+   * @returns {Observable<SubscriptionResponse>} Un observable contenant le nombre d'abonnements retirés.
    */
-  unsubscribeFromTheme(themeId: number): Observable<void> {
+  unsubscribeFromTheme(themeId: number): Observable<SubscriptionResponse> {
     return this.http
-      .delete<void>(`${this.apiUrl}/unsubscribe/${themeId}`)
-      .pipe(catchError(this.handleError));
+      .delete<SubscriptionResponse>(`${this.apiUrl}/unsubscribe/${themeId}`)
+      .pipe(tap((response) => this.storeToken(response)), catchError(this.handleError));
   }
 
   /**
@@ -82,11 +83,22 @@ export class ThemeService {
    * Permet à un utilisateur de s'abonner à un thème en fonction de son ID.
    *
    * @param themeId L'ID du thème auquel l'utilisateur souhaite s'abonner.
-   * @returns {Observable<void>} Un observable pour indiquer que l'action a été effectuée.
+   * @returns {Observable<SubscriptionResponse>} Un observable contenant le nombre d'abonnements ajoutés.
    */
-  subscribeToTheme(themeId: number): Observable<void> {
+  subscribeToTheme(themeId: number): Observable<SubscriptionResponse> {
     return this.http
-      .post<void>(`${this.apiUrl}/subscribe/${themeId}`, {})
-      .pipe(catchError(this.handleError));
+      .post<SubscriptionResponse>(`${this.apiUrl}/subscribe/${themeId}`, {})
+      .pipe(tap((response) => this.storeToken(response)), catchError(this.handleError));
+  }
+
+  /**
+   * Remplace le token stocké par celui renvoyé après un changement d'abonnements :
+   * il porte les thèmes à jour, sans quoi chaque lecture du fil relirait la base.
+   * @param response La réponse du changement d'abonnements
+   */
+  private storeToken(response: SubscriptionResponse): void {
+    if (response.token) {
+      localStorage.setItem('token', response.token);
+    }
   }
 }
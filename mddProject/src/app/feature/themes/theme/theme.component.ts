@@ -86,7 +86,7 @@ export class ThemeComponent implements OnInit {
     }
 
     this.userService.subscribeToTheme(themeId).subscribe(
-      (updatedUser: User) => {
+      () => {
         this.subscribedThemes.push(themeId); // Ajoute le thème à la liste des abonnements
         console.log(`Successfully subscribed to theme ID ${themeId}`);
       },
@@ -109,7 +109,7 @@ export class ThemeComponent implements OnInit {
     }
 
     this.userService.unsubscribeFromTheme(themeId).subscribe(
-      (updatedUser: User) => {
+      () => {
         this.subscribedThemes = this.subscribedThemes.filter(
           (id) => id !== themeId,
         ); // Supprime le thème des abonnements